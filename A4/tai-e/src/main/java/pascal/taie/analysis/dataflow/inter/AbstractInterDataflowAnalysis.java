@@ -25,14 +25,24 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -119,11 +129,53 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     @Override
     public Object analyze() {
-        icfg = World.get().getResult(ICFGBuilder.ID);
+        String solverKind = getOptions().getString("solver");
+        boolean lazy = getOptions().getBooleanOrDefault("lazy-icfg", false);
+        if (lazy && solverKind != null && !solverKind.equals("worklist")) {
+            throw new ConfigException(
+                    "lazy-icfg is only supported by the worklist solver, not " + solverKind);
+        }
+        if (lazy) {
+            icfg = newLazyICFG();
+        } else {
+            icfg = World.get().getResult(ICFGBuilder.ID);
+        }
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        DataflowResult<Node, Fact> result;
+        if ("summary".equals(solverKind)) {
+            result = new SummarySolver<>(this, icfg).solve();
+        } else if ("parallel".equals(solverKind) &&
+                Runtime.getRuntime().availableProcessors() > 1) {
+            result = new ParallelInterSolver<>(this, icfg,
+                    Runtime.getRuntime().availableProcessors()).solve();
+        } else {
+            // the worklist solver also serves "parallel" on a single
+            // processor, where the parallel solver only adds overhead
+            solver = lazy ?
+                    new InterSolver<>(this, icfg, newNodesOf(icfg)) :
+                    new InterSolver<>(this, icfg);
+            result = solver.solve();
+        }
         finish();
         return result;
     }
+
+    /**
+     * Creates an ICFG that materializes methods when they are first
+     * reached by the solver. The ICFG is built on the call graph,
+     * thus its method and node types are {@link JMethod} and {@link Stmt}.
+     * With this ICFG, the analysis does not require {@link ICFGBuilder},
+     * see the conditional requirements in tai-e-analyses.yml.
+     */
+    @SuppressWarnings("unchecked")
+    private ICFG<Method, Node> newLazyICFG() {
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return (ICFG<Method, Node>) (ICFG<?, ?>) new LazyICFG(callGraph);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Node> Supplier<List<Node>> newNodesOf(ICFG<?, Node> icfg) {
+        LazyICFG lazyICFG = (LazyICFG) icfg;
+        return () -> (List<Node>) lazyICFG.pollNewNodes();
+    }
 }
@@ -0,0 +1,325 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Provides the work-list algorithm shared by the summary-based solvers
+ * for inter-procedural data-flow analysis.
+ * <p>
+ * Such solvers follow the functional approach: each method is analyzed
+ * separately for every pair of its key and entry fact, and the resulting
+ * exit fact serves as the summary of the method for that pair. Call sites
+ * that reach a callee with the same key and entry fact share its summary
+ * instead of re-solving the callee. The key identifies the method, possibly
+ * together with the context under which the method is analyzed.
+ * <p>
+ * To guarantee termination on recursion, the number of summaries of each
+ * key is bounded by {@link #MAX_SUMMARIES}; further entry facts of the key
+ * are merged into a single widened summary.
+ *
+ * @param <Key>    type of the keys of summaries
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ * @param <Fact>   type of data-flow facts
+ */
+abstract class AbstractSummarySolver<Key, Method, Node, Fact> {
+
+    /**
+     * Maximum number of distinct entry facts that are summarized
+     * separately for a key.
+     */
+    private static final int MAX_SUMMARIES = 16;
+
+    protected final InterDataflowAnalysis<Node, Fact> analysis;
+
+    protected final ICFG<Method, Node> icfg;
+
+    /**
+     * Map from each key to its summaries, indexed by entry facts.
+     * The entry facts in this map are never modified.
+     */
+    private final Map<Key, Map<Fact, Summary>> summaries = Maps.newMap();
+
+    /**
+     * Map from each key to its widened summary, if any.
+     */
+    private final Map<Key, Summary> widened = Maps.newMap();
+
+    /**
+     * Distinct summaries of each method.
+     */
+    private final MultiMap<Method, Summary> summariesOf = Maps.newMultiMap();
+
+    private final Queue<Pair<Summary, Node>> workList = new SetQueue<>();
+
+    protected AbstractSummarySolver(InterDataflowAnalysis<Node, Fact> analysis,
+                                    ICFG<Method, Node> icfg) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+    }
+
+    /**
+     * @return the method of given key.
+     */
+    protected abstract Method getMethod(Key key);
+
+    /**
+     * @return the keys of the callees of given call site that belong to
+     * given callee method, when the call site is analyzed under given key.
+     */
+    protected abstract Set<Key> getCallees(Key caller, Node callSite, Method callee);
+
+    /**
+     * Transfers given node in a summary. Subclasses can overwrite this
+     * method to observe the facts of the node.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        return analysis.transferNode(node, in, out);
+    }
+
+    /**
+     * Adds an entry of the program. The boundary fact serves as the entry
+     * fact of given key, which is met into the IN fact of its entry node,
+     * so that the entry node is transferred and propagated on its first visit.
+     */
+    protected void addEntry(Key key) {
+        Node entry = icfg.getEntryOf(getMethod(key));
+        getSummary(key, analysis.newBoundaryFact(entry));
+    }
+
+    protected void doSolve() {
+        while (!workList.isEmpty()) {
+            Pair<Summary, Node> item = workList.poll();
+            Summary summary = item.first();
+            Node node = item.second();
+            Fact in = summary.inFacts.computeIfAbsent(node,
+                    __ -> analysis.newInitialFact());
+            if (node.equals(icfg.getEntryOf(getMethod(summary.key)))) {
+                analysis.meetInto(summary.entryFact, in);
+            }
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                if (inEdge instanceof ReturnEdge<Node> returnEdge) {
+                    meetReturn(summary, node, returnEdge, in);
+                } else if (!(inEdge instanceof CallEdge)) {
+                    Fact predOut = summary.outFacts.get(inEdge.getSource());
+                    if (predOut != null) {
+                        analysis.meetInto(
+                                analysis.transferEdge(inEdge, predOut), in);
+                    }
+                }
+            }
+            boolean firstVisit = !summary.outFacts.containsKey(node);
+            Fact out = summary.outFacts.computeIfAbsent(node,
+                    __ -> analysis.newInitialFact());
+            if (transferNode(node, in, out) || firstVisit) {
+                propagate(summary, node, out);
+            }
+        }
+    }
+
+    /**
+     * Meets the return facts of the callee summaries that are called
+     * from given summary into the IN fact of the return site.
+     */
+    private void meetReturn(Summary caller, Node retSite,
+                            ReturnEdge<Node> returnEdge, Fact in) {
+        Node callSite = returnEdge.getCallSite();
+        Fact callSiteOut = caller.outFacts.get(callSite);
+        if (callSiteOut == null) {
+            return;
+        }
+        Node exit = returnEdge.getSource();
+        Method callee = icfg.getContainingMethodOf(exit);
+        Node calleeEntry = icfg.getEntryOf(callee);
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(callSite)) {
+            if (outEdge instanceof CallEdge &&
+                    outEdge.getTarget().equals(calleeEntry)) {
+                Fact entryFact = analysis.transferEdge(outEdge, callSiteOut);
+                for (Key key : getCallees(caller.key, callSite, callee)) {
+                    Summary summary = getSummary(key, entryFact);
+                    summary.returnSites.add(new Pair<>(caller, retSite));
+                    Fact exitOut = summary.outFacts.get(exit);
+                    if (exitOut != null) {
+                        analysis.meetInto(
+                                analysis.transferEdge(returnEdge, exitOut), in);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagates the changed OUT fact of given node to its successors
+     * within the same summary, to the callees (for call sites),
+     * and to the dependent return sites (for exits).
+     */
+    private void propagate(Summary summary, Node node, Fact out) {
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+            if (outEdge instanceof CallEdge) {
+                Method callee = icfg.getContainingMethodOf(outEdge.getTarget());
+                Fact entryFact = analysis.transferEdge(outEdge, out);
+                for (Key key : getCallees(summary.key, node, callee)) {
+                    Summary calleeSummary = getSummary(key, entryFact);
+                    icfg.getReturnSitesOf(node).forEach(retSite ->
+                            calleeSummary.returnSites.add(new Pair<>(summary, retSite)));
+                }
+                icfg.getReturnSitesOf(node).forEach(retSite ->
+                        workList.add(new Pair<>(summary, retSite)));
+            } else if (!(outEdge instanceof ReturnEdge)) {
+                workList.add(new Pair<>(summary, outEdge.getTarget()));
+            }
+        }
+        if (node.equals(icfg.getExitOf(getMethod(summary.key)))) {
+            workList.addAll(summary.returnSites);
+        }
+    }
+
+    /**
+     * @return the summary of given key for given entry fact.
+     * If no such summary exists yet, a new one is created and scheduled,
+     * or the entry fact is merged into the widened summary when
+     * the key already has too many summaries.
+     */
+    private Summary getSummary(Key key, Fact entryFact) {
+        Map<Fact, Summary> summaryMap = summaries.computeIfAbsent(
+                key, __ -> Maps.newMap());
+        Summary summary = summaryMap.get(entryFact);
+        if (summary == null) {
+            // the given fact may be modified by the analysis afterwards,
+            // thus the summary is keyed by a snapshot of it
+            entryFact = copyOf(entryFact);
+            Summary wide = widened.get(key);
+            if (wide == null && summaryMap.size() < MAX_SUMMARIES) {
+                summary = newSummary(key, entryFact);
+            } else {
+                if (wide == null) {
+                    wide = newSummary(key, analysis.newInitialFact());
+                    widened.put(key, wide);
+                }
+                analysis.meetInto(entryFact, wide.entryFact);
+                summary = wide;
+            }
+            summaryMap.put(entryFact, summary);
+            workList.add(new Pair<>(summary, icfg.getEntryOf(getMethod(key))));
+        }
+        return summary;
+    }
+
+    /**
+     * @return a new fact that equals given fact, obtained by meeting
+     * given fact into a new initial fact.
+     */
+    private Fact copyOf(Fact fact) {
+        Fact copy = analysis.newInitialFact();
+        analysis.meetInto(fact, copy);
+        return copy;
+    }
+
+    private Summary newSummary(Key key, Fact entryFact) {
+        Summary summary = new Summary(key, entryFact);
+        summariesOf.put(getMethod(key), summary);
+        return summary;
+    }
+
+    /**
+     * Merges the facts of given node in all summaries of its method.
+     *
+     * @param node  the node
+     * @param in    the fact to merge the IN facts into
+     * @param out   the fact to merge the OUT facts into
+     */
+    protected void meetFacts(Node node, Fact in, Fact out) {
+        for (Summary summary : summariesOf.get(icfg.getContainingMethodOf(node))) {
+            Fact summaryIn = summary.inFacts.get(node);
+            if (summaryIn != null) {
+                analysis.meetInto(summaryIn, in);
+            }
+            Fact summaryOut = summary.outFacts.get(node);
+            if (summaryOut != null) {
+                analysis.meetInto(summaryOut, out);
+            }
+        }
+    }
+
+    /**
+     * Re-schedules given node in all summaries that have visited it.
+     *
+     * @return true if the work-list changed as a result.
+     */
+    protected boolean reschedule(Node node) {
+        boolean changed = false;
+        for (Summary summary : summariesOf.get(icfg.getContainingMethodOf(node))) {
+            if (summary.outFacts.containsKey(node)) {
+                changed |= workList.add(new Pair<>(summary, node));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the work-list of this solver, whose items are pairs of
+     * summaries and nodes.
+     */
+    protected Queue<? extends Pair<?, Node>> getWorkList() {
+        return workList;
+    }
+
+    /**
+     * Data-flow facts of a method that is analyzed under a specific
+     * key and entry fact. The OUT fact of its exit node is the summary.
+     */
+    private class Summary {
+
+        private final Key key;
+
+        private final Fact entryFact;
+
+        private final Map<Node, Fact> inFacts = Maps.newMap();
+
+        private final Map<Node, Fact> outFacts = Maps.newMap();
+
+        /**
+         * Return sites (in caller summaries) which depend on this summary.
+         */
+        private final Set<Pair<Summary, Node>> returnSites = Sets.newHybridSet();
+
+        private Summary(Key key, Fact entryFact) {
+            this.key = key;
+            this.entryFact = entryFact;
+        }
+    }
+}
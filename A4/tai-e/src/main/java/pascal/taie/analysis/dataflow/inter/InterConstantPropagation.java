@@ -41,8 +41,6 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
-import java.util.List;
-
 import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
 
 /**
@@ -55,6 +53,15 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    /**
+     * Result of the call and return edges that pass no int values,
+     * e.g., calls to methods without int parameters and void methods,
+     * which is shared to avoid creating empty facts on every traversal.
+     * The solvers only read the results of edge transfer functions,
+     * thus this fact is never modified.
+     */
+    private static final CPFact EMPTY_FACT = new CPFact();
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
@@ -115,44 +122,36 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
         // TODO - finish me
-        CPFact cpfact = new CPFact();
-        // 1.首先我们要拿到invokeExp
-        Invoke invoke = (Invoke)edge.getSource();
-        InvokeExp invokeExp = invoke.getInvokeExp();
-
-        // 2.在callee Jmethod中拿到形参
-        for (int i = 0; i < edge.getCallee().getParamCount(); i++) {
-            Var param = edge.getCallee().getIR().getParam(i);
-            // 3. 把形参和实参的value对应起来
-            Value value = callSiteOut.get(invokeExp.getArg(i));
-            if(canHoldInt(param))cpfact.update(param,value);
+        InvokeExp invokeExp = ((Invoke) edge.getSource()).getInvokeExp();
+        JMethod callee = edge.getCallee();
+        IR calleeIR = callee.getIR();
+        CPFact cpfact = null;
+        for (int i = 0; i < callee.getParamCount(); i++) {
+            Var param = calleeIR.getParam(i);
+            if (canHoldInt(param)) {
+                if (cpfact == null) {
+                    cpfact = new CPFact();
+                }
+                cpfact.update(param, callSiteOut.get(invokeExp.getArg(i)));
+            }
         }
-
-        return cpfact;
+        return cpfact != null ? cpfact : EMPTY_FACT;
     }
 
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - finish me
-        CPFact cpFact = new CPFact();
-        // 如果callsite左侧没有变量赋值，那么直接返回一个空的cpfact
-        if (edge.getCallSite().getDef().isEmpty()) {
-            return cpFact;
+        Var defVar = ((Invoke) edge.getCallSite()).getLValue();
+        if (defVar == null || !canHoldInt(defVar)) {
+            return EMPTY_FACT;
         }
-        // 获取定义变量
-//        LValue def_Var = edge.getCallSite().getDef().get();
-        Invoke invoke  = (Invoke)edge.getCallSite();
-        Var def_Var = invoke.getLValue();
-        if(def_Var == null)return cpFact;
+        CPFact cpFact = new CPFact();
         // 如果有多个返回值，需要进行Meet操作
-        // === Sol ===
-        Value[] values = new Value[1];
-        values[0] = Value.getUndef();
-        edge.getReturnVars().forEach(var -> {
-            Value value = returnOut.get(var);
-            values[0] = cp.meetValue(value , values[0]);
-        });
-        cpFact.update( def_Var , values[0]);
+        Value value = Value.getUndef();
+        for (Var retVar : edge.getReturnVars()) {
+            value = cp.meetValue(returnOut.get(retVar), value);
+        }
+        cpFact.update(defVar, value);
         return cpFact;
     }
 }
@@ -27,8 +27,10 @@ import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.util.collection.SetQueue;
 
+import java.util.Collection;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -46,10 +48,26 @@ class InterSolver<Method, Node, Fact> {
 
     private Queue<Node> workList;
 
+    /**
+     * Supplies the nodes that the ICFG has added since the last call,
+     * or null if the ICFG is complete. If it is non-null, this solver is
+     * demand-driven: it only seeds the entries of the ICFG, and creates
+     * the facts of other nodes when they are first reached.
+     * Only the nodes of the methods reached by the solver are in the result.
+     */
+    private final Supplier<? extends Collection<Node>> newNodes;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, null);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg,
+                Supplier<? extends Collection<Node>> newNodes) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.newNodes = newNodes;
         workList = new SetQueue<>();
     }
 
@@ -61,6 +79,14 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void initialize() {
+        if (newNodes != null) {
+            icfg.entryMethods().forEach(m -> {
+                Node entry = icfg.getEntryOf(m);
+                result.setOutFact(entry, analysis.newBoundaryFact(entry));
+                workList.add(entry);
+            });
+            return;
+        }
         // TODO - finish me
         // 1.初始化ICFG中其他节点为initialfact
         for(Node node : icfg){
@@ -77,6 +103,10 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void doSolve() {
+        if (newNodes != null) {
+            doSolveOnDemand();
+            return;
+        }
         // TODO - finish me
         for (Node basic_block : icfg) {
             workList.add(basic_block);
@@ -94,4 +124,40 @@ class InterSolver<Method, Node, Fact> {
             }
         }
     }
+
+    /**
+     * Work-list algorithm that only visits the nodes of the methods
+     * reached from the seeded entries. Each node is propagated at least
+     * once on its first visit, so that all reachable nodes are solved.
+     * When the ICFG adds the nodes of a newly reached method, all of them
+     * are added to the work-list, so that the nodes that are unreachable
+     * within their methods are solved as well, as the work-list algorithm
+     * above does.
+     */
+    private void doSolveOnDemand() {
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            boolean firstVisit = in == null;
+            if (firstVisit) {
+                in = analysis.newInitialFact();
+                result.setInFact(node, in);
+            }
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                Fact predOut = result.getOutFact(inEdge.getSource());
+                if (predOut != null) {
+                    analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+                }
+            }
+            Fact out = result.getOutFact(node);
+            if (out == null) {
+                out = analysis.newInitialFact();
+                result.setOutFact(node, out);
+            }
+            if (analysis.transferNode(node, in, out) || firstVisit) {
+                workList.addAll(icfg.getSuccsOf(node));
+            }
+            workList.addAll(newNodes.get());
+        }
+    }
 }
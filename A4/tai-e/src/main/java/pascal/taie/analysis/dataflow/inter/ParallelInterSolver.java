@@ -0,0 +1,323 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Parallel solver for inter-procedural data-flow analysis.
+ * <p>
+ * The solver condenses the call graph into strongly connected components
+ * (SCCs), and solves the SCCs in topological order of the call graph,
+ * i.e., callers before callees, so that the facts flowing into the entry
+ * of each method are available when the method is solved. The SCCs whose
+ * callers are all solved form a wave, and the SCCs of a wave are solved
+ * in parallel on a {@link ForkJoinPool}. Methods in the same SCC are
+ * solved together until a fixed point is reached.
+ * <p>
+ * Return facts flow against the topological order: when the OUT fact of
+ * an exit changes, the return sites in the callers are re-solved in the
+ * next round, which starts from the facts of the previous round. A method
+ * is solved from scratch only once; afterwards, only the nodes whose
+ * incoming facts from other SCCs changed are re-analyzed initially, and
+ * the rounds only visit the waves that hold such nodes. Rounds are
+ * repeated until no facts change, thus the result is the same fixed point
+ * as computed by {@link InterSolver}. The given analysis must be safe to
+ * call from multiple threads.
+ */
+class ParallelInterSolver<Method, Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Map from each method to its nodes in the ICFG.
+     */
+    private final MultiMap<Method, Node> nodesOf = Maps.newMultiMap();
+
+    private final Set<Method> entryMethods = Sets.newSet();
+
+    /**
+     * Methods that have been solved at least once.
+     */
+    private final Set<Method> solvedMethods = Sets.newConcurrentSet();
+
+    /**
+     * IN and OUT facts of the nodes of the solved methods. The facts of
+     * a node are only written by the thread that solves the SCC of its method.
+     */
+    private final Map<Node, Fact> inFacts = Maps.newConcurrentMap();
+
+    private final Map<Node, Fact> outFacts = Maps.newConcurrentMap();
+
+    ParallelInterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                        ICFG<Method, Node> icfg, int parallelism) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        try {
+            MergedSCCGraph<Method> sccGraph = new MergedSCCGraph<>(buildMethodGraph());
+            List<List<MergedNode<Method>>> waves =
+                    computeWaves(sccGraph, sccGraph::getPredsOf);
+            DirtySCCs dirty = new DirtySCCs(waves);
+            int next = 0;
+            while (true) {
+                Integer wave = dirty.nextWave(next);
+                if (wave == null) {
+                    // start the next round from the first dirty wave
+                    wave = dirty.nextWave(0);
+                    if (wave == null) {
+                        break;
+                    }
+                }
+                Map<MergedNode<Method>, Set<Node>> sccs = dirty.pollSCCs(wave);
+                if (sccs.size() == 1) {
+                    // avoid the overhead of the pool for a single SCC
+                    sccs.forEach((scc, seeds) -> solveSCC(scc.getNodes(), seeds, dirty));
+                } else {
+                    pool.submit(() -> sccs.entrySet().parallelStream().forEach(e ->
+                                    solveSCC(e.getKey().getNodes(), e.getValue(), dirty)))
+                            .join();
+                }
+                next = wave + 1;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return collectResult();
+    }
+
+    /**
+     * Builds the method-level graph from the ICFG, which is condensed
+     * into SCCs afterwards.
+     */
+    private Graph<Method> buildMethodGraph() {
+        icfg.entryMethods().forEach(entryMethods::add);
+        SimpleGraph<Method> graph = new SimpleGraph<>();
+        for (Node node : icfg) {
+            Method method = icfg.getContainingMethodOf(node);
+            nodesOf.put(method, node);
+            graph.addNode(method);
+            if (icfg.isCallSite(node)) {
+                icfg.getCalleesOf(node).forEach(callee -> {
+                    graph.addNode(callee);
+                    graph.addEdge(method, callee);
+                });
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Partitions the SCCs into waves. An SCC belongs to the first wave in
+     * which all its dependencies (given by {@code deps}) have been solved.
+     */
+    private static <M> List<List<MergedNode<M>>> computeWaves(
+            MergedSCCGraph<M> sccGraph,
+            Function<MergedNode<M>, Set<MergedNode<M>>> deps) {
+        Map<MergedNode<M>, Integer> pending = Maps.newMap();
+        MultiMap<MergedNode<M>, MergedNode<M>> dependents = Maps.newMultiMap();
+        List<MergedNode<M>> current = new ArrayList<>();
+        for (MergedNode<M> scc : sccGraph) {
+            int count = 0;
+            for (MergedNode<M> dep : deps.apply(scc)) {
+                if (!dep.equals(scc)) {
+                    dependents.put(dep, scc);
+                    ++count;
+                }
+            }
+            pending.put(scc, count);
+            if (count == 0) {
+                current.add(scc);
+            }
+        }
+        List<List<MergedNode<M>>> waves = new ArrayList<>();
+        while (!current.isEmpty()) {
+            waves.add(current);
+            List<MergedNode<M>> next = new ArrayList<>();
+            for (MergedNode<M> scc : current) {
+                for (MergedNode<M> dependent : dependents.get(scc)) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            current = next;
+        }
+        return waves;
+    }
+
+    /**
+     * Solves the methods of an SCC until a fixed point is reached.
+     * The methods that have not been solved are solved from scratch.
+     * Otherwise, solving starts from the facts of the previous round,
+     * which are updated in place, and only the given seeds, i.e.,
+     * the nodes whose incoming facts from other SCCs changed,
+     * are (re-)analyzed initially. When the OUT fact of a node changes,
+     * its successors in other SCCs are added to the seeds of their SCCs.
+     */
+    private void solveSCC(List<Method> methods, Set<Node> seeds, DirtySCCs dirty) {
+        Set<Method> component = Sets.newHybridSet(methods);
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(seeds);
+        for (Method method : methods) {
+            if (nodesOf.containsKey(method) && !solvedMethods.contains(method)) {
+                for (Node node : nodesOf.get(method)) {
+                    inFacts.put(node, analysis.newInitialFact());
+                    outFacts.put(node, analysis.newInitialFact());
+                }
+                if (entryMethods.contains(method)) {
+                    Node entry = icfg.getEntryOf(method);
+                    outFacts.put(entry, analysis.newBoundaryFact(entry));
+                }
+                solvedMethods.add(method);
+                workList.addAll(nodesOf.get(method));
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = inFacts.get(node);
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                // the OUT fact is absent if the method of
+                // the source has not been solved
+                Fact predOut = outFacts.get(inEdge.getSource());
+                if (predOut != null) {
+                    analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+                }
+            }
+            if (analysis.transferNode(node, in, outFacts.get(node))) {
+                for (Node succ : icfg.getSuccsOf(node)) {
+                    Method succMethod = icfg.getContainingMethodOf(succ);
+                    if (component.contains(succMethod)) {
+                        workList.add(succ);
+                    } else {
+                        // callees are re-solved later in this round,
+                        // and callers in the next round
+                        dirty.add(succMethod, succ);
+                    }
+                }
+            }
+        }
+    }
+
+    private DataflowResult<Node, Fact> collectResult() {
+        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        for (Node node : icfg) {
+            result.setInFact(node, inFacts.get(node));
+            result.setOutFact(node, outFacts.get(node));
+        }
+        return result;
+    }
+
+    /**
+     * SCCs that need to be (re-)solved together with their seeds, indexed
+     * by their waves, so that the waves without such SCCs are skipped.
+     * SCCs of the wave being solved are never added, as the SCCs in
+     * the same wave are independent.
+     */
+    private class DirtySCCs {
+
+        private final Map<Method, MergedNode<Method>> sccOf = Maps.newMap();
+
+        private final Map<MergedNode<Method>, Integer> waveOf = Maps.newMap();
+
+        private final List<Map<MergedNode<Method>, Set<Node>>> seedsOf = new ArrayList<>();
+
+        /**
+         * Indexes of the waves that hold dirty SCCs.
+         */
+        private final NavigableSet<Integer> waves = new ConcurrentSkipListSet<>();
+
+        /**
+         * Creates the dirty SCCs of the first round, i.e., all SCCs.
+         */
+        private DirtySCCs(List<List<MergedNode<Method>>> waves) {
+            for (int i = 0; i < waves.size(); ++i) {
+                Map<MergedNode<Method>, Set<Node>> seeds = Maps.newConcurrentMap();
+                for (MergedNode<Method> scc : waves.get(i)) {
+                    scc.getNodes().forEach(m -> sccOf.put(m, scc));
+                    waveOf.put(scc, i);
+                    seeds.put(scc, Sets.newConcurrentSet());
+                }
+                seedsOf.add(seeds);
+                this.waves.add(i);
+            }
+        }
+
+        /**
+         * Adds given node of given method to the seeds of the SCC of the method.
+         */
+        private void add(Method method, Node node) {
+            MergedNode<Method> scc = sccOf.get(method);
+            int wave = waveOf.get(scc);
+            seedsOf.get(wave)
+                    .computeIfAbsent(scc, __ -> Sets.newConcurrentSet())
+                    .add(node);
+            waves.add(wave);
+        }
+
+        /**
+         * @return index of the first wave that holds dirty SCCs
+         * and is not before {@code from}, or null if no such wave.
+         */
+        private Integer nextWave(int from) {
+            return waves.ceiling(from);
+        }
+
+        /**
+         * Removes and returns the dirty SCCs of given wave and their seeds.
+         */
+        private Map<MergedNode<Method>, Set<Node>> pollSCCs(int wave) {
+            waves.remove(wave);
+            Map<MergedNode<Method>, Set<Node>> seeds = seedsOf.get(wave);
+            seedsOf.set(wave, Maps.newConcurrentMap());
+            return seeds;
+        }
+    }
+}
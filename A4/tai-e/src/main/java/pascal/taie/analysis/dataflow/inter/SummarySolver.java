@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFG;
+
+import java.util.Set;
+
+/**
+ * Summary-based solver for inter-procedural data-flow analysis.
+ * <p>
+ * Different from {@link InterSolver}, which merges the facts of all
+ * callers at the entry of each callee, this solver analyzes each method
+ * once per distinct entry fact, as described in {@link AbstractSummarySolver}.
+ * The methods themselves serve as the keys of summaries.
+ */
+class SummarySolver<Method, Node, Fact>
+        extends AbstractSummarySolver<Method, Method, Node, Fact> {
+
+    SummarySolver(InterDataflowAnalysis<Node, Fact> analysis,
+                  ICFG<Method, Node> icfg) {
+        super(analysis, icfg);
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        icfg.entryMethods().forEach(this::addEntry);
+        doSolve();
+        return collectResult();
+    }
+
+    @Override
+    protected Method getMethod(Method method) {
+        return method;
+    }
+
+    @Override
+    protected Set<Method> getCallees(Method caller, Node callSite, Method callee) {
+        return Set.of(callee);
+    }
+
+    /**
+     * Merges the facts of all summaries of each method, so that the result
+     * can be consumed in the same way as the result of {@link InterSolver}.
+     */
+    private DataflowResult<Node, Fact> collectResult() {
+        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        for (Node node : icfg) {
+            Fact in = analysis.newInitialFact();
+            Fact out = analysis.newInitialFact();
+            meetFacts(node, in, out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        }
+        return result;
+    }
+}
@@ -52,13 +52,58 @@ public abstract class AbstractCallGraph<CallSite, Method>
     protected final Set<Method> entryMethods = Sets.newSet();
     protected final Set<Method> reachableMethods = Sets.newSet();
 
+    /**
+     * Compact storage of the edges after this call graph is frozen.
+     */
+    protected CallGraphCSR<CallSite, Method> csr;
+
+    /**
+     * Freezes this call graph, i.e., converts its edges into compact
+     * {@link CallGraphCSR} storage and releases the hash-based storage.
+     * The query API keeps working on the frozen call graph,
+     * while it cannot be modified any more.
+     * This method should be called after the call graph is constructed.
+     */
+    public void freeze() {
+        if (csr == null) {
+            csr = new CallGraphCSR<>(this);
+            callSiteToEdges.clear();
+            calleeToEdges.clear();
+            callSiteToContainer.clear();
+            callSitesIn.clear();
+        }
+    }
+
+    /**
+     * @return true if this call graph has been frozen.
+     */
+    public boolean isFrozen() {
+        return csr != null;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if this call graph is frozen.
+     */
+    protected void checkNotFrozen() {
+        if (csr != null) {
+            throw new UnsupportedOperationException(
+                    "Cannot modify a frozen call graph");
+        }
+    }
+
     @Override
     public Set<CallSite> getCallersOf(Method callee) {
+        if (csr != null) {
+            return csr.getCallersOf(callee);
+        }
         return Views.toMappedSet(calleeToEdges.get(callee), Edge::getCallSite);
     }
 
     @Override
     public Set<Method> getCalleesOf(CallSite callSite) {
+        if (csr != null) {
+            return csr.getCalleesOf(callSite);
+        }
         return Views.toMappedSet(callSiteToEdges.get(callSite), Edge::getCallee);
     }
 
@@ -71,31 +116,49 @@ public abstract class AbstractCallGraph<CallSite, Method>
 
     @Override
     public Method getContainerOf(CallSite callSite) {
+        if (csr != null) {
+            return csr.getContainerOf(callSite);
+        }
         return callSiteToContainer.get(callSite);
     }
 
     @Override
     public Set<CallSite> getCallSitesIn(Method method) {
+        if (csr != null) {
+            return csr.getCallSitesIn(method);
+        }
         return callSitesIn.get(method);
     }
 
     @Override
     public Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        if (csr != null) {
+            return csr.edgesOutOf(callSite);
+        }
         return callSiteToEdges.get(callSite).stream();
     }
 
     @Override
     public Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        if (csr != null) {
+            return csr.edgesInTo(method);
+        }
         return calleeToEdges.get(method).stream();
     }
 
     @Override
     public Stream<Edge<CallSite, Method>> edges() {
+        if (csr != null) {
+            return csr.edges();
+        }
         return callSiteToEdges.values().stream();
     }
 
     @Override
     public int getNumberOfEdges() {
+        if (csr != null) {
+            return csr.getNumberOfEdges();
+        }
         return callSiteToEdges.size();
     }
 
@@ -26,95 +26,210 @@ import pascal.taie.World;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.DispatchTable;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Sets;
 
-import java.util.*;
-import java.util.jar.JarEntry;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Implementation of the CHA algorithm.
+ * <p>
+ * After the call graph is built, it can be updated incrementally via
+ * {@link #update(Collection)} when some classes change.
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
-    private ClassHierarchy hierarchy;
+    private DispatchTable dispatchTable;
+
+    private DefaultCallGraph callGraph;
 
     @Override
     public CallGraph<Invoke, JMethod> build() {
-        hierarchy = World.get().getClassHierarchy();
+        dispatchTable = new DispatchTable(World.get().getClassHierarchy());
         return buildCallGraph(World.get().getMainMethod());
     }
 
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
-        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
-        // TODO - finish me
         Deque<JMethod> WL = new ArrayDeque<>();
         WL.addLast(entry);
+        processWorkList(WL, edge -> {});
+        return callGraph;
+    }
+
+    /**
+     * Processes the methods in the work-list until no new methods
+     * become reachable.
+     *
+     * @param onNewEdge called on each call edge added to the call graph
+     */
+    private void processWorkList(Deque<JMethod> WL,
+                                 Consumer<Edge<Invoke, JMethod>> onNewEdge) {
         while (!WL.isEmpty()) {
             JMethod m = WL.removeFirst();
             if (callGraph.addReachableMethod(m)) {
                 Stream<Invoke> invokeStream = callGraph.callSitesIn(m);
                 invokeStream.forEach((cs) -> {
-                    Set<JMethod> T = resolve(cs);
+                    Set<JMethod> T = resolve(dispatchTable, cs);
                     for (JMethod target : T) {
                         CallKind callkind = CallGraphs.getCallKind(cs);
-                        callGraph.addEdge(new Edge<>(callkind, cs, target));
+                        Edge<Invoke, JMethod> edge = new Edge<>(callkind, cs, target);
+                        if (callGraph.addEdge(edge)) {
+                            onNewEdge.accept(edge);
+                        }
                         WL.addLast(target);
                     }
                 });
             }
         }
-        return callGraph;
     }
 
     /**
-     * Resolves call targets (callees) of a call site via CHA.
+     * Takes over a call graph built by CHA elsewhere (e.g., loaded from
+     * cache or built in parallel), so that it can be updated incrementally.
      */
-    private Set<JMethod> resolve(Invoke callSite) {
-        // TODO - finish me
-        Set<JMethod> T = new HashSet<>();
-        Subsignature m = callSite.getMethodRef().getSubsignature();
-        JClass jclass = callSite.getMethodRef().getDeclaringClass();
-        CallKind callKind = CallGraphs.getCallKind(callSite);
-        if (callKind == CallKind.STATIC) {
-            // invokestatic
-            JMethod target_method = jclass.getDeclaredMethod(m);
-            if (target_method != null) T.add(target_method);
-        } else if (callKind == CallKind.SPECIAL) {
-            JMethod target_method = dispatch(jclass, m);
-            if (target_method != null) T.add(target_method);
-        } else if (callKind == CallKind.VIRTUAL || callKind == CallKind.INTERFACE) {
-            Deque<JClass> deque = new ArrayDeque<>();
-            deque.addLast(jclass);
-            while (!deque.isEmpty()) {
-                JClass c_t = deque.removeFirst();
-                JMethod dispatch_method = dispatch(c_t, m);
-                if (dispatch_method != null) T.add(dispatch_method);
-                if (c_t.isInterface()) {
-                    deque.addAll(hierarchy.getDirectImplementorsOf(c_t));
-                    deque.addAll(hierarchy.getDirectSubinterfacesOf(c_t));
-                } else {
-                    deque.addAll(hierarchy.getDirectSubclassesOf(c_t));
+    void attach(DefaultCallGraph callGraph) {
+        this.dispatchTable = new DispatchTable(World.get().getClassHierarchy());
+        this.callGraph = callGraph;
+    }
+
+    /**
+     * Incrementally updates the call graph after given classes were
+     * changed, added, or removed. The class hierarchy in {@link World}
+     * should have been updated before calling this method.
+     * <p>
+     * The dispatch results that may depend on the changed classes are
+     * invalidated. The methods of changed classes are removed and
+     * re-processed if they are still reachable, and only the call sites
+     * whose method references are declared in a supertype of any
+     * (transitive) subtype of changed classes are resolved again.
+     * At last, the methods that become unreachable are removed.
+     *
+     * @return the call edges added and removed by this update.
+     */
+    CallGraphDelta<Invoke, JMethod> update(Collection<JClass> changedClasses) {
+        Set<JClass> changed = Sets.newHybridSet(changedClasses);
+        // dispatch on the subclasses of changed classes may change, which
+        // affects the call sites on their supertypes
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        Set<JClass> related = Sets.newSet();
+        for (JClass c : changed) {
+            hierarchy.getAllSubtypesOf(c).forEach(sub -> addSuperTypes(sub, related));
+        }
+        Predicate<JClass> affected = related::contains;
+        dispatchTable.invalidate(affected);
+        Set<Edge<Invoke, JMethod>> added = Sets.newSet();
+        Set<Edge<Invoke, JMethod>> removed = Sets.newSet();
+        Consumer<Edge<Invoke, JMethod>> onAdd = e -> {
+            if (!removed.remove(e)) {
+                added.add(e);
+            }
+        };
+        Consumer<Edge<Invoke, JMethod>> onRemove = e -> {
+            if (!added.remove(e)) {
+                removed.add(e);
+            }
+        };
+        // remove methods of changed classes, as their IR may change
+        List<JMethod> dirty = callGraph.reachableMethods()
+                .filter(m -> changed.contains(m.getDeclaringClass()))
+                .toList();
+        dirty.forEach(m -> callGraph.removeReachableMethod(m).forEach(onRemove));
+        // re-resolve affected call sites
+        Deque<JMethod> WL = new ArrayDeque<>();
+        for (JMethod m : callGraph.reachableMethods().toList()) {
+            for (Invoke cs : callGraph.getCallSitesIn(m)) {
+                if (affected.test(cs.getMethodRef().getDeclaringClass())) {
+                    Set<JMethod> T = resolve(dispatchTable, cs);
+                    callGraph.edgesOutOf(cs)
+                            .filter(e -> !T.contains(e.getCallee()))
+                            .toList()
+                            .forEach(e -> {
+                                callGraph.removeEdge(e);
+                                onRemove.accept(e);
+                            });
+                    CallKind callKind = CallGraphs.getCallKind(cs);
+                    for (JMethod target : T) {
+                        Edge<Invoke, JMethod> edge = new Edge<>(callKind, cs, target);
+                        if (callGraph.addEdge(edge)) {
+                            onAdd.accept(edge);
+                        }
+                        WL.addLast(target);
+                    }
                 }
             }
         }
-        return T;
+        // re-process removed methods that are still reachable
+        Set<JMethod> entries = callGraph.entryMethods().collect(Collectors.toSet());
+        for (JMethod m : dirty) {
+            if (entries.contains(m) || !callGraph.getCallersOf(m).isEmpty()) {
+                WL.addLast(m);
+            }
+        }
+        processWorkList(WL, onAdd);
+        removeUnreachableMethods(entries, onRemove);
+        return new CallGraphDelta<>(Collections.unmodifiableSet(added),
+                Collections.unmodifiableSet(removed));
+    }
+
+    private static void addSuperTypes(JClass jclass, Set<JClass> superTypes) {
+        if (jclass != null && superTypes.add(jclass)) {
+            addSuperTypes(jclass.getSuperClass(), superTypes);
+            jclass.getInterfaces().forEach(i -> addSuperTypes(i, superTypes));
+        }
     }
 
     /**
-     * Looks up the target method based on given class and method subsignature.
-     *
-     * @return the dispatched target method, or null if no satisfying method
-     * can be found.
+     * Removes the methods that are no longer reachable from the entries.
+     */
+    private void removeUnreachableMethods(
+            Set<JMethod> entries, Consumer<Edge<Invoke, JMethod>> onRemove) {
+        Set<JMethod> live = Sets.newSet();
+        Deque<JMethod> stack = new ArrayDeque<>(entries);
+        while (!stack.isEmpty()) {
+            JMethod m = stack.pop();
+            if (live.add(m)) {
+                callGraph.callSitesIn(m).forEach(cs ->
+                        stack.addAll(callGraph.getCalleesOf(cs)));
+            }
+        }
+        callGraph.reachableMethods()
+                .filter(m -> !live.contains(m))
+                .toList()
+                .forEach(m -> callGraph.removeReachableMethod(m).forEach(onRemove));
+    }
+
+    /**
+     * Resolves call targets (callees) of a call site via CHA.
+     * This method is also used by {@link ParallelCHABuilder},
+     * and is thread-safe.
      */
-    private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
-        if (jclass == null) return null;
-        JMethod target = jclass.getDeclaredMethod(subsignature);
-        if (target != null && !target.isAbstract()) return target;
-        return dispatch(jclass.getSuperClass(), subsignature);
+    static Set<JMethod> resolve(DispatchTable dispatchTable, Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        CallKind callKind = CallGraphs.getCallKind(callSite);
+        JMethod target = null;
+        if (callKind == CallKind.STATIC) {
+            // invokestatic
+            target = methodRef.getDeclaringClass()
+                    .getDeclaredMethod(methodRef.getSubsignature());
+        } else if (callKind == CallKind.SPECIAL) {
+            target = dispatchTable.dispatch(
+                    methodRef.getDeclaringClass(), methodRef.getSubsignature());
+        } else if (callKind == CallKind.VIRTUAL || callKind == CallKind.INTERFACE) {
+            return dispatchTable.getCHATargets(methodRef);
+        }
+        return target != null ? Set.of(target) : Set.of();
     }
 }
@@ -30,8 +30,11 @@ import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Comparator;
 
@@ -48,6 +51,16 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     private final String algorithm;
 
+    /**
+     * The call graph built by the last run.
+     */
+    private CallGraph<Invoke, JMethod> callGraph;
+
+    /**
+     * The builder of the last run, kept for incremental updates.
+     */
+    private CHABuilder chaBuilder;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
@@ -55,16 +68,64 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        String cacheDir = getOptions().getString("cache-dir");
+        File cacheFile = cacheDir != null ?
+                CallGraphCache.getCacheFile(cacheDir, algorithm) : null;
+        chaBuilder = null;
+        callGraph = cacheFile != null ? CallGraphCache.read(cacheFile) : null;
+        if (callGraph == null) {
+            callGraph = buildCallGraph();
+            if (cacheFile != null) {
+                CallGraphCache.write(callGraph, cacheFile);
+            }
+        }
+        if (getOptions().getBooleanOrDefault("freeze", false)) {
+            ((AbstractCallGraph<Invoke, JMethod>) callGraph).freeze();
+        }
+        takeAction(callGraph);
+        return callGraph;
+    }
+
+    /**
+     * Incrementally updates the call graph built by the last run of
+     * {@link #analyze()} after given classes were changed, added,
+     * or removed. Only supported for CHA call graphs that are not frozen.
+     *
+     * @return the call edges added and removed by the update.
+     */
+    public CallGraphDelta<Invoke, JMethod> update(Collection<JClass> changedClasses) {
+        if (callGraph instanceof AbstractCallGraph<?, ?> cg && cg.isFrozen()) {
+            throw new AnalysisException(
+                    "Incremental update is not supported for frozen call graphs");
+        }
+        if (chaBuilder == null) {
+            if (!algorithm.equals("cha") ||
+                    !(callGraph instanceof DefaultCallGraph defaultCallGraph)) {
+                throw new AnalysisException(
+                        "Incremental update is only supported for CHA call graphs");
+            }
+            chaBuilder = new CHABuilder();
+            chaBuilder.attach(defaultCallGraph);
+        }
+        return chaBuilder.update(changedClasses);
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = getOptions().getBooleanOrDefault("parallel", false) ?
+                    new ParallelCHABuilder(
+                            Runtime.getRuntime().availableProcessors()) :
+                    new CHABuilder();
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder();
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
-        takeAction(callGraph);
+        chaBuilder = builder instanceof CHABuilder cha ? cha : null;
         return callGraph;
     }
 
@@ -76,7 +137,13 @@ public class CallGraphBuilder extends ProgramAnalysis {
         if (action.equals("dump")) {
             logCallGraph(callGraph);
             String file = getOptions().getString("file");
-            CallGraphs.dumpCallGraph(callGraph, file);
+            String format = getOptions().getString("format");
+            if (format == null || format.equals("dot")) {
+                CallGraphs.dumpCallGraph(callGraph, file);
+            } else {
+                CallGraphs.exportCallGraph(callGraph,
+                        CallGraphExporter.Format.of(format), file);
+            }
         }
     }
 
@@ -0,0 +1,289 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of call graphs.
+ * <p>
+ * A cached call graph is stored in a binary file named after the
+ * fingerprint of the analyzed program (the class path entries, including
+ * their sizes and modification times, and the main class) and the call
+ * graph algorithm. The file consists of:
+ * <ol>
+ *     <li>header: magic number and format version</li>
+ *     <li>method table: signatures of all methods in the call graph</li>
+ *     <li>entry methods and reachable methods, as method ids</li>
+ *     <li>edges, as four arrays: caller ids, indexes of call sites in
+ *     the IR of callers, callee ids, and call kinds</li>
+ * </ol>
+ * All integers are big-endian, and strings are length-prefixed UTF-8.
+ * The file is read via memory-mapped I/O.
+ */
+final class CallGraphCache {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphCache.class);
+
+    private static final int MAGIC = 0x54434746; // "TCGF"
+
+    private static final int VERSION = 1;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private CallGraphCache() {
+    }
+
+    /**
+     * @return the cache file of the call graph built by given algorithm
+     * for the current program.
+     */
+    static File getCacheFile(String cacheDir, String algorithm) {
+        return new File(cacheDir, fingerprint(algorithm) + ".cg");
+    }
+
+    /**
+     * Computes the fingerprint of the current program and algorithm.
+     */
+    private static String fingerprint(String algorithm) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Options options = World.get().getOptions();
+            update(digest, "algorithm=" + algorithm);
+            update(digest, "main=" + options.getMainClass());
+            update(digest, "java=" + options.getJavaVersion());
+            update(digest, "jvm=" + options.isPrependJVM());
+            String classPath = options.getClassPath();
+            if (classPath != null) {
+                for (String entry : classPath.split(File.pathSeparator)) {
+                    updateWithPath(digest, Path.of(entry));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new RuntimeException("Failed to compute fingerprint", e);
+        }
+    }
+
+    private static void updateWithPath(MessageDigest digest, Path path)
+            throws IOException {
+        update(digest, "path=" + path.toAbsolutePath());
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.filter(Files::isRegularFile)
+                        .sorted().toList()) {
+                    updateWithFile(digest, file);
+                }
+            }
+        } else if (Files.isRegularFile(path)) {
+            updateWithFile(digest, path);
+        }
+    }
+
+    private static void updateWithFile(MessageDigest digest, Path file)
+            throws IOException {
+        update(digest, file + ":" + Files.size(file) + ":" +
+                Files.getLastModifiedTime(file).toMillis());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Writes given call graph to given file. The file is written via
+     * a temporary file, so that readers never see a partial file.
+     */
+    static void write(CallGraph<Invoke, JMethod> callGraph, File file) {
+        Map<JMethod, Integer> ids = Maps.newMap();
+        List<JMethod> methods = new ArrayList<>();
+        callGraph.reachableMethods().forEach(m -> getId(m, ids, methods));
+        List<Edge<Invoke, JMethod>> edges = callGraph.edges().toList();
+        edges.forEach(e -> getId(e.getCallee(), ids, methods));
+        try {
+            Files.createDirectories(file.toPath().toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(
+                    file.toPath().toAbsolutePath().getParent(), "cg", ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(methods.size());
+                for (JMethod method : methods) {
+                    byte[] sig = method.getSignature().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(sig.length);
+                    out.write(sig);
+                }
+                List<JMethod> entries = callGraph.entryMethods().toList();
+                out.writeInt(entries.size());
+                for (JMethod entry : entries) {
+                    out.writeInt(getId(entry, ids, methods));
+                }
+                List<JMethod> reachable = callGraph.reachableMethods().toList();
+                out.writeInt(reachable.size());
+                for (JMethod method : reachable) {
+                    out.writeInt(ids.get(method));
+                }
+                out.writeInt(edges.size());
+                for (Edge<Invoke, JMethod> edge : edges) {
+                    out.writeInt(ids.get(edge.getCallSite().getContainer()));
+                }
+                for (Edge<Invoke, JMethod> edge : edges) {
+                    out.writeInt(edge.getCallSite().getIndex());
+                }
+                for (Edge<Invoke, JMethod> edge : edges) {
+                    out.writeInt(ids.get(edge.getCallee()));
+                }
+                for (Edge<Invoke, JMethod> edge : edges) {
+                    out.writeByte(edge.getKind().ordinal());
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Cached call graph to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to cache call graph to {}", file, e);
+        }
+    }
+
+    private static int getId(JMethod method, Map<JMethod, Integer> ids,
+                             List<JMethod> methods) {
+        return ids.computeIfAbsent(method, m -> {
+            methods.add(m);
+            return methods.size() - 1;
+        });
+    }
+
+    /**
+     * Reads a call graph from given file.
+     *
+     * @return the call graph, or null if the file does not exist
+     * or does not match the current program.
+     */
+    static @Nullable
+    CallGraph<Invoke, JMethod> read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                logger.warn("Ignored call graph cache {} of unknown format", file);
+                return null;
+            }
+            JMethod[] methods = new JMethod[buf.getInt()];
+            for (int i = 0; i < methods.length; ++i) {
+                String sig = readString(buf);
+                methods[i] = getMethod(sig);
+                if (methods[i] == null) {
+                    logger.warn("Ignored stale call graph cache {}: {} not found",
+                            file, sig);
+                    return null;
+                }
+            }
+            DefaultCallGraph callGraph = new DefaultCallGraph();
+            int nEntries = buf.getInt();
+            for (int i = 0; i < nEntries; ++i) {
+                callGraph.addEntryMethod(methods[buf.getInt()]);
+            }
+            int nReachable = buf.getInt();
+            for (int i = 0; i < nReachable; ++i) {
+                callGraph.addReachableMethod(methods[buf.getInt()]);
+            }
+            int nEdges = buf.getInt();
+            int[] callers = readInts(buf, nEdges);
+            int[] indexes = readInts(buf, nEdges);
+            int[] callees = readInts(buf, nEdges);
+            for (int i = 0; i < nEdges; ++i) {
+                Invoke callSite = (Invoke) methods[callers[i]]
+                        .getIR().getStmt(indexes[i]);
+                callGraph.addEdge(new Edge<>(
+                        KINDS[buf.get()], callSite, methods[callees[i]]));
+            }
+            logger.info("Loaded call graph from {}", file);
+            return callGraph;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load call graph cache {}", file, e);
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer buf, int n) {
+        int[] ints = new int[n];
+        buf.asIntBuffer().get(ints);
+        buf.position(buf.position() + n * Integer.BYTES);
+        return ints;
+    }
+
+    /**
+     * @return the method of given signature, or null if absent.
+     */
+    private static @Nullable
+    JMethod getMethod(String signature) {
+        JClass jclass = World.get().getClassHierarchy()
+                .getClass(StringReps.getClassNameOf(signature));
+        return jclass == null ? null : jclass.getDeclaredMethod(
+                Subsignature.get(StringReps.getSubsignatureOf(signature)));
+    }
+}
@@ -0,0 +1,657 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Maps;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exporter and loader of call graphs.
+ * <p>
+ * The edges are written in the order of {@link CallGraph#edges()}, and
+ * each method or call site is written when it is first encountered, so
+ * no sorted copy of the call graph is materialized. Methods and call sites
+ * are written by their {@code toString()}, thus this class works for both
+ * context-insensitive and context-sensitive call graphs. Three formats are
+ * supported (see {@link Format}), and files of all formats can be read
+ * back via {@link #load(Path, Visitor)}, which recognizes the format
+ * by the content of the file.
+ */
+public final class CallGraphExporter {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphExporter.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private static final int MAGIC = 0x54434745; // "TCGE"
+
+    private static final int VERSION = 1;
+
+    private static final byte END = 0;
+
+    private static final byte METHOD = 1;
+
+    private static final byte CALL_SITE = 2;
+
+    private static final byte ENTRY = 3;
+
+    private static final byte EDGE = 4;
+
+    private CallGraphExporter() {
+    }
+
+    /**
+     * Supported formats.
+     */
+    public enum Format {
+
+        /**
+         * Compact binary edge list. The file starts with a magic number
+         * and the format version, followed by a sequence of records,
+         * each of which starts with a tag byte:
+         * <ul>
+         *     <li>{@code METHOD}: signature (a new method id)</li>
+         *     <li>{@code CALL_SITE}: container id and call site
+         *     (a new call site id)</li>
+         *     <li>{@code ENTRY}: method id</li>
+         *     <li>{@code EDGE}: call site id, callee id and kind</li>
+         *     <li>{@code END}</li>
+         * </ul>
+         * Ids are numbered consecutively from 0 in the order of definition.
+         * All integers are big-endian, and strings are length-prefixed UTF-8.
+         */
+        BINARY(".cgb"),
+
+        /**
+         * Gzip'd tab-separated values, one edge per line:
+         * {@code caller, call site, kind, callee}. Entry methods are
+         * written before edges as lines of {@code #entry, method}.
+         * Backslashes, tabs and line breaks in the values are escaped as
+         * {@code \\}, {@code \t}, {@code \n} and {@code \r}.
+         */
+        TSV(".tsv.gz"),
+
+        /**
+         * GraphML, where nodes are methods and edges are call edges
+         * labeled with call sites and kinds.
+         */
+        GRAPHML(".graphml");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException("Unknown call graph format: " + name);
+            }
+        }
+    }
+
+    /**
+     * Visitor of the call graph read by {@link #load(Path, Visitor)}.
+     */
+    public interface Visitor {
+
+        void visitEntry(String method);
+
+        void visitEdge(String caller, String callSite, CallKind kind, String callee);
+    }
+
+    // ---------- exporting ----------
+
+    /**
+     * Writes given call graph to given file in given format.
+     */
+    public static <CallSite, Method> void export(
+            CallGraph<CallSite, Method> callGraph, Format format, Path file) {
+        logger.info("Exporting call graph to {} ...", file);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            switch (format) {
+                case BINARY -> exportBinary(callGraph, channel);
+                case TSV -> exportTSV(callGraph, channel);
+                case GRAPHML -> exportGraphML(callGraph, channel);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to export call graph to " + file, e);
+        }
+    }
+
+    private static <CallSite, Method> void exportBinary(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        ChannelOutput out = new ChannelOutput(channel);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        Map<Method, Integer> methodIds = Maps.newMap();
+        Map<CallSite, Integer> callSiteIds = Maps.newMap();
+        for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+            int id = writeMethod(it.next(), methodIds, out);
+            out.put(ENTRY);
+            out.putInt(id);
+        }
+        for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+            Edge<CallSite, Method> edge = it.next();
+            CallSite callSite = edge.getCallSite();
+            Integer callSiteId = callSiteIds.get(callSite);
+            if (callSiteId == null) {
+                int containerId = writeMethod(
+                        callGraph.getContainerOf(callSite), methodIds, out);
+                callSiteId = callSiteIds.size();
+                callSiteIds.put(callSite, callSiteId);
+                out.put(CALL_SITE);
+                out.putInt(containerId);
+                out.putString(callSite.toString());
+            }
+            int calleeId = writeMethod(edge.getCallee(), methodIds, out);
+            out.put(EDGE);
+            out.putInt(callSiteId);
+            out.putInt(calleeId);
+            out.put((byte) edge.getKind().ordinal());
+        }
+        out.put(END);
+        out.flush();
+    }
+
+    /**
+     * Writes the definition of given method if it has not been written.
+     *
+     * @return the id of the method.
+     */
+    private static <Method> int writeMethod(
+            Method method, Map<Method, Integer> ids, ChannelOutput out)
+            throws IOException {
+        Integer id = ids.get(method);
+        if (id == null) {
+            id = ids.size();
+            ids.put(method, id);
+            out.put(METHOD);
+            out.putString(method.toString());
+        }
+        return id;
+    }
+
+    private static <CallSite, Method> void exportTSV(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE),
+                StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+                out.write("#entry\t");
+                out.write(escapeTSV(it.next().toString()));
+                out.write('\n');
+            }
+            for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+                Edge<CallSite, Method> edge = it.next();
+                out.write(escapeTSV(callGraph.getContainerOf(edge.getCallSite()).toString()));
+                out.write('\t');
+                out.write(escapeTSV(edge.getCallSite().toString()));
+                out.write('\t');
+                out.write(edge.getKind().name());
+                out.write('\t');
+                out.write(escapeTSV(edge.getCallee().toString()));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static String escapeTSV(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            String esc = switch (c) {
+                case '\\' -> "\\\\";
+                case '\t' -> "\\t";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (esc != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (esc != null) {
+                    sb.append(esc);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : s;
+    }
+
+    private static <CallSite, Method> void exportGraphML(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            out.write("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <graphml xmlns="http://graphml.graphdrawing.org/xmlns">
+                      <key id="method" for="node" attr.name="method" attr.type="string"/>
+                      <key id="entry" for="node" attr.name="entry" attr.type="boolean"/>
+                      <key id="callSite" for="edge" attr.name="callSite" attr.type="string"/>
+                      <key id="kind" for="edge" attr.name="kind" attr.type="string"/>
+                      <graph edgedefault="directed">
+                    """);
+            Map<Method, Integer> nodeIds = Maps.newMap();
+            for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+                writeNode(it.next(), true, nodeIds, out);
+            }
+            for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+                Edge<CallSite, Method> edge = it.next();
+                int source = writeNode(callGraph.getContainerOf(edge.getCallSite()),
+                        false, nodeIds, out);
+                int target = writeNode(edge.getCallee(), false, nodeIds, out);
+                out.write("    <edge source=\"n" + source + "\" target=\"n" + target + "\">");
+                out.write("<data key=\"callSite\">");
+                out.write(escapeXML(edge.getCallSite().toString()));
+                out.write("</data><data key=\"kind\">");
+                out.write(edge.getKind().name());
+                out.write("</data></edge>\n");
+            }
+            out.write("  </graph>\n</graphml>\n");
+        }
+    }
+
+    /**
+     * Writes the node of given method if it has not been written.
+     *
+     * @return the id of the node.
+     */
+    private static <Method> int writeNode(
+            Method method, boolean entry, Map<Method, Integer> ids, Writer out)
+            throws IOException {
+        Integer id = ids.get(method);
+        if (id == null) {
+            id = ids.size();
+            ids.put(method, id);
+            out.write("    <node id=\"n" + id + "\"><data key=\"method\">");
+            out.write(escapeXML(method.toString()));
+            out.write("</data>");
+            if (entry) {
+                out.write("<data key=\"entry\">true</data>");
+            }
+            out.write("</node>\n");
+        }
+        return id;
+    }
+
+    private static String escapeXML(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            String esc = switch (c) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (esc != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (esc != null) {
+                    sb.append(esc);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : s;
+    }
+
+    // ---------- loading ----------
+
+    /**
+     * Reads the call graph in given file, which is written by
+     * {@link #export(CallGraph, Format, Path)} in any format, and passes
+     * its entry methods and edges to given visitor in the written order.
+     */
+    public static void load(Path file, Visitor visitor) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChannelInput in = new ChannelInput(channel);
+            if (in.remaining(Integer.BYTES) && in.peekInt() == MAGIC) {
+                loadBinary(in, visitor);
+            } else if (in.remaining(2) && in.peekShort() == (short) 0x1f8b) {
+                channel.position(0);
+                loadTSV(channel, visitor);
+            } else {
+                channel.position(0);
+                loadGraphML(channel, visitor);
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Failed to load call graph from " + file, e);
+        }
+    }
+
+    private static void loadBinary(ChannelInput in, Visitor visitor)
+            throws IOException {
+        in.getInt(); // magic
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        List<String> methods = new ArrayList<>();
+        List<String> callSites = new ArrayList<>();
+        List<String> containers = new ArrayList<>();
+        while (true) {
+            byte tag = in.get();
+            switch (tag) {
+                case END -> {
+                    return;
+                }
+                case METHOD -> methods.add(in.getString());
+                case CALL_SITE -> {
+                    containers.add(methods.get(in.getInt()));
+                    callSites.add(in.getString());
+                }
+                case ENTRY -> visitor.visitEntry(methods.get(in.getInt()));
+                case EDGE -> {
+                    int callSite = in.getInt();
+                    String callee = methods.get(in.getInt());
+                    visitor.visitEdge(containers.get(callSite),
+                            callSites.get(callSite), KINDS[in.get()], callee);
+                }
+                default -> throw new IOException("Unknown record tag: " + tag);
+            }
+        }
+    }
+
+    private static void loadTSV(FileChannel channel, Visitor visitor)
+            throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE),
+                StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#entry\t")) {
+                    visitor.visitEntry(unescapeTSV(
+                            line.substring("#entry\t".length())));
+                } else if (!line.isEmpty()) {
+                    int i = line.indexOf('\t');
+                    int j = line.indexOf('\t', i + 1);
+                    int k = line.indexOf('\t', j + 1);
+                    visitor.visitEdge(unescapeTSV(line.substring(0, i)),
+                            unescapeTSV(line.substring(i + 1, j)),
+                            CallKind.valueOf(line.substring(j + 1, k)),
+                            unescapeTSV(line.substring(k + 1)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reverses {@link #escapeTSV(String)}.
+     */
+    private static String unescapeTSV(String s) {
+        int i = s.indexOf('\\');
+        if (i < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length()).append(s, 0, i);
+        for (; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void loadGraphML(FileChannel channel, Visitor visitor)
+            throws XMLStreamException {
+        InputStream is = Channels.newInputStream(channel);
+        XMLStreamReader reader = XMLInputFactory.newFactory()
+                .createXMLStreamReader(is, StandardCharsets.UTF_8.name());
+        Map<String, String> methods = Maps.newMap();
+        String nodeId = null, source = null, target = null, key = null;
+        String method = null, callSite = null, kind = null;
+        boolean entry = false;
+        StringBuilder text = new StringBuilder();
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        switch (reader.getLocalName()) {
+                            case "node" -> {
+                                nodeId = reader.getAttributeValue(null, "id");
+                                entry = false;
+                            }
+                            case "edge" -> {
+                                source = reader.getAttributeValue(null, "source");
+                                target = reader.getAttributeValue(null, "target");
+                            }
+                            case "data" -> {
+                                key = reader.getAttributeValue(null, "key");
+                                text.setLength(0);
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS -> {
+                        if (key != null) {
+                            text.append(reader.getText());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        switch (reader.getLocalName()) {
+                            case "data" -> {
+                                switch (key) {
+                                    case "method" -> method = text.toString();
+                                    case "entry" -> entry = Boolean.parseBoolean(text.toString());
+                                    case "callSite" -> callSite = text.toString();
+                                    case "kind" -> kind = text.toString();
+                                }
+                                key = null;
+                            }
+                            case "node" -> {
+                                methods.put(nodeId, method);
+                                if (entry) {
+                                    visitor.visitEntry(method);
+                                }
+                            }
+                            case "edge" -> visitor.visitEdge(methods.get(source),
+                                    callSite, CallKind.valueOf(kind), methods.get(target));
+                        }
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Buffered binary output to a channel.
+     */
+    private static class ChannelOutput {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void put(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        private void putInt(int i) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(i);
+        }
+
+        private void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length <= buffer.capacity()) {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            } else {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Buffered binary input from a channel.
+     */
+    private static class ChannelInput {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            buffer.flip();
+            fill(0);
+        }
+
+        /**
+         * Tries to make at least n bytes available in the buffer.
+         */
+        private void fill(int n) throws IOException {
+            if (buffer.remaining() >= n && buffer.hasRemaining()) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < Math.max(n, 1) &&
+                    channel.read(buffer) >= 0) {
+                // keep reading until enough bytes or end of file
+            }
+            buffer.flip();
+        }
+
+        private boolean remaining(int n) throws IOException {
+            fill(n);
+            return buffer.remaining() >= n;
+        }
+
+        private void require(int n) throws IOException {
+            if (!remaining(n)) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+
+        private int peekInt() {
+            return buffer.getInt(buffer.position());
+        }
+
+        private short peekShort() {
+            return buffer.getShort(buffer.position());
+        }
+
+        private byte get() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        private int getInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        private String getString() throws IOException {
+            byte[] bytes = new byte[getInt()];
+            int read = 0;
+            while (read < bytes.length) {
+                require(1);
+                int n = Math.min(buffer.remaining(), bytes.length - read);
+                buffer.get(bytes, read, n);
+                read += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -40,6 +40,7 @@ import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -96,6 +97,22 @@ public final class CallGraphs {
                 .dump(callGraph, output);
     }
 
+    /**
+     * Exports call graph to file in given format.
+     */
+    static void exportCallGraph(CallGraph<Invoke, JMethod> callGraph,
+                                CallGraphExporter.Format format, String output) {
+        if (output == null) {
+            output = new File(Configs.getOutputDir(),
+                    callGraph.entryMethods()
+                            .map(m -> m.getDeclaringClass() + "." + m.getName())
+                            .collect(Collectors.joining("-")) + "-cg" +
+                            format.getExtension())
+                    .toString();
+        }
+        CallGraphExporter.export(callGraph, format, Path.of(output));
+    }
+
     public static String toString(Invoke invoke) {
         return invoke.getContainer() + IRPrinter.toString(invoke);
     }
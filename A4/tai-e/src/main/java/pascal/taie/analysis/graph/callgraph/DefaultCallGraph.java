@@ -26,6 +26,8 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -37,6 +39,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      * Adds an entry method to this call graph.
      */
     public void addEntryMethod(JMethod entryMethod) {
+        checkNotFrozen();
         entryMethods.add(entryMethod);
     }
 
@@ -47,6 +50,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      * otherwise false.
      */
     public boolean addReachableMethod(JMethod method) {
+        checkNotFrozen();
         if (reachableMethods.add(method)) {
             if (!method.isAbstract()) {
                 method.getIR().forEach(stmt -> {
@@ -69,6 +73,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      * otherwise false.
      */
     public boolean addEdge(Edge<Invoke, JMethod> edge) {
+        checkNotFrozen();
         if (callSiteToEdges.put(edge.getCallSite(), edge)) {
             calleeToEdges.put(edge.getCallee(), edge);
             return true;
@@ -77,6 +82,42 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Removes a call graph edge from this call graph.
+     *
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<Invoke, JMethod> edge) {
+        checkNotFrozen();
+        if (callSiteToEdges.remove(edge.getCallSite(), edge)) {
+            calleeToEdges.remove(edge.getCallee(), edge);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Removes a reachable method from this call graph, together with
+     * its call sites and the call edges out of them.
+     *
+     * @return the removed call edges.
+     */
+    public List<Edge<Invoke, JMethod>> removeReachableMethod(JMethod method) {
+        checkNotFrozen();
+        List<Edge<Invoke, JMethod>> removed = new ArrayList<>();
+        if (reachableMethods.remove(method)) {
+            for (Invoke callSite : callSitesIn.get(method)) {
+                removed.addAll(callSiteToEdges.get(callSite));
+                callSiteToContainer.remove(callSite);
+            }
+            removed.forEach(this::removeEdge);
+            callSitesIn.removeAll(method);
+        }
+        return removed;
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
@@ -0,0 +1,150 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.DispatchTable;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel implementation of the CHA algorithm.
+ * <p>
+ * Reachable methods are discovered wave by wave: the call sites of the
+ * methods in a wave are resolved in parallel on a {@link ForkJoinPool},
+ * and the callees that become reachable for the first time form the next
+ * wave. Each method is claimed by exactly one thread via a concurrent
+ * reachable-method set, so the callees of its call sites are written
+ * without locking. As {@link DefaultCallGraph} is not thread-safe,
+ * the call graph is assembled after all waves finish, and it is the same
+ * as the one built by {@link CHABuilder}.
+ * <p>
+ * {@link JMethod#getIR()} builds the IR lazily without synchronization,
+ * and the IR builder is not thread-safe, thus the IRs of the methods
+ * in each wave are built on the calling thread before the wave is
+ * fanned out, and the workers only read them.
+ */
+class ParallelCHABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private final ForkJoinPool pool;
+
+    private DispatchTable dispatchTable;
+
+    private final Set<JMethod> reachableMethods = Sets.newConcurrentSet();
+
+    /**
+     * Map from each call site in reachable methods to its callees.
+     */
+    private final Map<Invoke, Set<JMethod>> callees = Maps.newConcurrentMap();
+
+    ParallelCHABuilder(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        dispatchTable = new DispatchTable(World.get().getClassHierarchy());
+        JMethod entry = World.get().getMainMethod();
+        List<List<JMethod>> waves;
+        try {
+            waves = computeReachableMethods(entry);
+        } finally {
+            pool.shutdown();
+        }
+        return buildCallGraph(entry, waves);
+    }
+
+    /**
+     * Discovers reachable methods and resolves their call sites in parallel.
+     *
+     * @return the waves of reachable methods, in discovery order.
+     */
+    private List<List<JMethod>> computeReachableMethods(JMethod entry) {
+        List<List<JMethod>> waves = new ArrayList<>();
+        reachableMethods.add(entry);
+        List<JMethod> wave = List.of(entry);
+        while (!wave.isEmpty()) {
+            waves.add(wave);
+            Queue<JMethod> next = new ConcurrentLinkedQueue<>();
+            List<JMethod> current = wave;
+            current.forEach(method -> {
+                if (!method.isAbstract()) {
+                    method.getIR();
+                }
+            });
+            pool.submit(() -> current.parallelStream()
+                    .forEach(method -> processMethod(method, next)))
+                    .join();
+            wave = new ArrayList<>(next);
+        }
+        return waves;
+    }
+
+    private void processMethod(JMethod method, Queue<JMethod> next) {
+        if (method.isAbstract()) {
+            return;
+        }
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof Invoke callSite) {
+                Set<JMethod> targets = CHABuilder.resolve(dispatchTable, callSite);
+                callees.put(callSite, targets);
+                for (JMethod target : targets) {
+                    if (reachableMethods.add(target)) {
+                        next.add(target);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Assembles the call graph from the results of parallel resolution.
+     */
+    private CallGraph<Invoke, JMethod> buildCallGraph(
+            JMethod entry, List<List<JMethod>> waves) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        for (List<JMethod> wave : waves) {
+            for (JMethod method : wave) {
+                callGraph.addReachableMethod(method);
+                callGraph.callSitesIn(method).forEach(callSite -> {
+                    CallKind callKind = CallGraphs.getCallKind(callSite);
+                    callees.get(callSite).forEach(callee ->
+                            callGraph.addEdge(new Edge<>(callKind, callSite, callee)));
+                });
+            }
+        }
+        return callGraph;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.DispatchTable;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * <p>
+ * Compared to CHA, RTA tracks the classes instantiated in reachable methods,
+ * and resolves virtual calls only to the methods dispatched on
+ * the instantiated classes. A class is instantiated by {@link New},
+ * or by a string or class constant (of types {@code java.lang.String}
+ * and {@code java.lang.Class}). Arrays dispatch virtual calls
+ * as {@code java.lang.Object}, thus array allocations instantiate it.
+ * <p>
+ * For each declaring class of reachable virtual call sites, RTA keeps
+ * its instantiated subtypes, and the targets of each method reference are
+ * resolved on them only once. When a class is instantiated for the first
+ * time, it is added to the instantiated subtypes of its supertypes, and
+ * the virtual call sites that can dispatch on it are resolved again
+ * incrementally.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private DispatchTable dispatchTable;
+
+    private JClass objectClass;
+
+    private DefaultCallGraph callGraph;
+
+    private Deque<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private final Set<JClass> instantiated = Sets.newSet();
+
+    /**
+     * Map from each method reference to reachable virtual call sites on it.
+     */
+    private final MultiMap<MethodRef, Invoke> virtualCallSites = Maps.newMultiMap();
+
+    /**
+     * Map from each class to the method references (of reachable virtual
+     * call sites) that are declared in the class.
+     */
+    private final MultiMap<JClass, MethodRef> methodRefsOf = Maps.newMultiMap();
+
+    /**
+     * Map from each class in {@link #methodRefsOf} to its subtypes
+     * (including itself) that are instantiated.
+     */
+    private final MultiMap<JClass, JClass> instantiatedSubtypes = Maps.newMultiMap();
+
+    /**
+     * Map from each method reference (of reachable virtual call sites)
+     * to the methods dispatched on the instantiated subtypes of
+     * its declaring class.
+     */
+    private final MultiMap<MethodRef, JMethod> targetsOf = Maps.newMultiMap();
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        dispatchTable = new DispatchTable(hierarchy);
+        objectClass = hierarchy.getJREClass(ClassNames.OBJECT);
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                for (Stmt stmt : method.getIR()) {
+                    if (stmt instanceof New newStmt) {
+                        NewExp newExp = newStmt.getRValue();
+                        addInstantiatedClass(newExp instanceof NewInstance newInstance ?
+                                newInstance.getType().getJClass() : objectClass);
+                    } else if (stmt instanceof AssignLiteral assign &&
+                            assign.getRValue() instanceof ReferenceLiteral literal &&
+                            literal.getType() instanceof ClassType classType) {
+                        addInstantiatedClass(classType.getJClass());
+                    } else if (stmt instanceof Invoke invoke) {
+                        processCallSite(invoke);
+                    }
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        CallKind callKind = CallGraphs.getCallKind(callSite);
+        if (callKind == CallKind.STATIC) {
+            addEdge(callKind, callSite, methodRef.getDeclaringClass()
+                    .getDeclaredMethod(methodRef.getSubsignature()));
+        } else if (callKind == CallKind.SPECIAL) {
+            addEdge(callKind, callSite, dispatchTable.dispatch(
+                    methodRef.getDeclaringClass(), methodRef.getSubsignature()));
+        } else if (callKind == CallKind.VIRTUAL || callKind == CallKind.INTERFACE) {
+            if (!virtualCallSites.containsKey(methodRef)) {
+                resolveTargets(methodRef);
+            }
+            virtualCallSites.put(methodRef, callSite);
+            for (JMethod target : targetsOf.get(methodRef)) {
+                addEdge(callKind, callSite, target);
+            }
+        }
+    }
+
+    /**
+     * Resolves the targets of the method reference of newly reachable
+     * virtual call sites. The instantiated subtypes of its declaring class
+     * are collected when the class is met for the first time.
+     */
+    private void resolveTargets(MethodRef methodRef) {
+        JClass declaringClass = methodRef.getDeclaringClass();
+        if (!methodRefsOf.containsKey(declaringClass)) {
+            for (JClass jclass : instantiated) {
+                if (hierarchy.isSubtype(declaringClass, jclass)) {
+                    instantiatedSubtypes.put(declaringClass, jclass);
+                }
+            }
+        }
+        methodRefsOf.put(declaringClass, methodRef);
+        for (JClass jclass : instantiatedSubtypes.get(declaringClass)) {
+            JMethod target = dispatchTable.dispatch(
+                    jclass, methodRef.getSubsignature());
+            if (target != null) {
+                targetsOf.put(methodRef, target);
+            }
+        }
+    }
+
+    /**
+     * Marks given class as instantiated, and resolves the reachable
+     * virtual call sites that can dispatch on the class.
+     */
+    private void addInstantiatedClass(JClass jclass) {
+        if (!instantiated.add(jclass)) {
+            return;
+        }
+        for (JClass superType : getSuperTypesOf(jclass)) {
+            if (!methodRefsOf.containsKey(superType)) {
+                continue;
+            }
+            instantiatedSubtypes.put(superType, jclass);
+            for (MethodRef methodRef : methodRefsOf.get(superType)) {
+                JMethod target = dispatchTable.dispatch(
+                        jclass, methodRef.getSubsignature());
+                // the call sites on methodRef already have the known targets
+                if (target != null && targetsOf.put(methodRef, target)) {
+                    for (Invoke callSite : virtualCallSites.get(methodRef)) {
+                        addEdge(CallGraphs.getCallKind(callSite), callSite, target);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return given class, its superclasses,
+     * and all interfaces they (directly or indirectly) implement.
+     */
+    private static Set<JClass> getSuperTypesOf(JClass jclass) {
+        Set<JClass> superTypes = Sets.newHybridSet();
+        Deque<JClass> stack = new ArrayDeque<>();
+        stack.push(jclass);
+        while (!stack.isEmpty()) {
+            JClass c = stack.pop();
+            if (superTypes.add(c)) {
+                if (c.getSuperClass() != null) {
+                    stack.push(c.getSuperClass());
+                }
+                c.getInterfaces().forEach(stack::push);
+            }
+        }
+        return superTypes;
+    }
+
+    private void addEdge(CallKind callKind, Invoke callSite, JMethod callee) {
+        if (callee != null &&
+                callGraph.addEdge(new Edge<>(callKind, callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+}
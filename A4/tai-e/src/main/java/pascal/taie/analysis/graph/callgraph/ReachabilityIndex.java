@@ -0,0 +1,288 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index for transitive reachability queries over a call graph.
+ * <p>
+ * The call graph is condensed into a DAG of strongly connected components
+ * (SCCs), which are numbered in topological order, so that an SCC can only
+ * reach SCCs with larger numbers. Each SCC is labeled with a bitset of
+ * the SCCs reachable from it, which takes about {@code n/8} bytes for
+ * {@code n} SCCs. The labels are bounded by a memory budget
+ * ({@link #DEFAULT_LABEL_BUDGET} by default): if the labels of all SCCs
+ * fit in the budget, they are computed when building the index, in reverse
+ * topological order; otherwise, the label of an SCC is computed when it is
+ * queried, and cached as long as the cached labels fit in the budget.
+ * <p>
+ * The index is meant for clients that ask many transitive queries on
+ * a call graph that does not change afterwards, e.g., whether a method
+ * may (transitively) call a sensitive method, or which methods may be
+ * affected by a change of given method (via the reachability on
+ * the reversed call graph). A single query is better answered by
+ * traversing the call graph.
+ * <p>
+ * Reachability is reflexive, i.e., every method reaches itself.
+ * Methods absent in the call graph reach nothing.
+ * This class is thread-safe.
+ *
+ * @param <Method> type of methods
+ */
+public class ReachabilityIndex<Method> {
+
+    /**
+     * Default memory budget (in bytes) for the labels.
+     */
+    private static final long DEFAULT_LABEL_BUDGET = 8L << 20;
+
+    /**
+     * Map from each method to the number of its SCC.
+     */
+    private final Map<Method, Integer> sccOf = Maps.newMap();
+
+    /**
+     * Methods of each SCC, indexed by SCC numbers.
+     */
+    private final List<List<Method>> sccs = new ArrayList<>();
+
+    /**
+     * Successors of each SCC in the condensed DAG.
+     */
+    private final int[][] succs;
+
+    /**
+     * Labels (reachable SCCs) of SCCs, indexed by SCC numbers.
+     */
+    private final ConcurrentMap<Integer, BitSet> labels = Maps.newConcurrentMap();
+
+    /**
+     * Memory budget (in bytes) for the labels.
+     */
+    private final long labelBudget;
+
+    /**
+     * Memory (in bytes) taken by the labels in {@link #labels}.
+     */
+    private final AtomicLong labelBytes = new AtomicLong();
+
+    public ReachabilityIndex(CallGraph<?, Method> callGraph) {
+        this(callGraph, DEFAULT_LABEL_BUDGET);
+    }
+
+    /**
+     * @param labelBudget memory budget (in bytes) for the labels
+     */
+    ReachabilityIndex(CallGraph<?, Method> callGraph, long labelBudget) {
+        this.labelBudget = labelBudget;
+        MergedSCCGraph<Method> sccGraph = new MergedSCCGraph<>(callGraph);
+        List<MergedNode<Method>> order = topologicalSort(sccGraph);
+        Map<MergedNode<Method>, Integer> numbers = Maps.newMap(order.size());
+        for (MergedNode<Method> scc : order) {
+            int number = sccs.size();
+            numbers.put(scc, number);
+            sccs.add(scc.getNodes());
+            scc.getNodes().forEach(m -> sccOf.put(m, number));
+        }
+        succs = new int[order.size()][];
+        for (int i = 0; i < order.size(); ++i) {
+            int number = i;
+            succs[i] = sccGraph.getSuccsOf(order.get(i))
+                    .stream()
+                    .mapToInt(numbers::get)
+                    .filter(j -> j > number) // ignore self-loops
+                    .toArray();
+        }
+        long allLabelBytes = order.size() * getLabelBytes();
+        if (allLabelBytes <= labelBudget) {
+            labelBytes.set(allLabelBytes);
+            for (int i = order.size() - 1; i >= 0; --i) {
+                BitSet label = new BitSet(order.size());
+                label.set(i);
+                for (int succ : succs[i]) {
+                    label.or(labels.get(succ));
+                }
+                labels.put(i, label);
+            }
+        }
+    }
+
+    /**
+     * Sorts the SCCs in topological order via Kahn's algorithm.
+     */
+    private static <M> List<MergedNode<M>> topologicalSort(
+            MergedSCCGraph<M> sccGraph) {
+        Map<MergedNode<M>, Integer> inDegrees = Maps.newMap();
+        Deque<MergedNode<M>> ready = new ArrayDeque<>();
+        for (MergedNode<M> scc : sccGraph) {
+            int inDegree = (int) sccGraph.getPredsOf(scc)
+                    .stream()
+                    .filter(pred -> !pred.equals(scc))
+                    .count();
+            inDegrees.put(scc, inDegree);
+            if (inDegree == 0) {
+                ready.add(scc);
+            }
+        }
+        List<MergedNode<M>> order = new ArrayList<>(inDegrees.size());
+        while (!ready.isEmpty()) {
+            MergedNode<M> scc = ready.poll();
+            order.add(scc);
+            for (MergedNode<M> succ : sccGraph.getSuccsOf(scc)) {
+                if (!succ.equals(scc) &&
+                        inDegrees.merge(succ, -1, Integer::sum) == 0) {
+                    ready.add(succ);
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return true if {@code target} is reachable from {@code source}.
+     */
+    public boolean canReach(Method source, Method target) {
+        Integer s = sccOf.get(source);
+        Integer t = sccOf.get(target);
+        if (s == null || t == null || s > t) {
+            // SCCs only reach SCCs with larger numbers
+            return false;
+        }
+        return s.equals(t) || getLabel(s).get(t);
+    }
+
+    /**
+     * @return an unmodifiable view of the methods reachable from
+     * given method (including itself).
+     */
+    public Set<Method> getReachableMethods(Method source) {
+        Integer s = sccOf.get(source);
+        return s == null ? Set.of() : new ReachableSet(getLabel(s));
+    }
+
+    /**
+     * @return the methods in the same SCC as given method,
+     * i.e., the methods that are mutually reachable with it.
+     */
+    public List<Method> getSCCOf(Method method) {
+        Integer s = sccOf.get(method);
+        return s == null ? List.of() : Collections.unmodifiableList(sccs.get(s));
+    }
+
+    /**
+     * @return the memory (in bytes) taken by the label of an SCC.
+     */
+    private long getLabelBytes() {
+        return ((sccs.size() + 63L) >> 6) << 3;
+    }
+
+    private BitSet getLabel(int scc) {
+        BitSet label = labels.get(scc);
+        if (label == null) {
+            label = computeLabel(scc);
+            long bytes = getLabelBytes();
+            if (labelBytes.addAndGet(bytes) <= labelBudget) {
+                BitSet prev = labels.putIfAbsent(scc, label);
+                if (prev != null) {
+                    labelBytes.addAndGet(-bytes);
+                    label = prev;
+                }
+            } else {
+                // over budget, thus the label is not cached
+                labelBytes.addAndGet(-bytes);
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Computes the label of given SCC by traversing the condensed DAG.
+     */
+    private BitSet computeLabel(int scc) {
+        BitSet label = new BitSet(sccs.size());
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(scc);
+        label.set(scc);
+        while (!stack.isEmpty()) {
+            for (int succ : succs[stack.pop()]) {
+                if (!label.get(succ)) {
+                    label.set(succ);
+                    stack.push(succ);
+                }
+            }
+        }
+        return label;
+    }
+
+    /**
+     * View of the methods in the SCCs of a label.
+     */
+    private class ReachableSet extends AbstractSet<Method> {
+
+        private final BitSet label;
+
+        private int size = -1;
+
+        private ReachableSet(BitSet label) {
+            this.label = label;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer t = sccOf.get(o);
+            return t != null && label.get(t);
+        }
+
+        @Override
+        public Iterator<Method> iterator() {
+            return label.stream()
+                    .mapToObj(sccs::get)
+                    .flatMap(List::stream)
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                size = label.stream().map(i -> sccs.get(i).size()).sum();
+            }
+            return size;
+        }
+    }
+}
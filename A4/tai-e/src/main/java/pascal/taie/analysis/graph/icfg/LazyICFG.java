@@ -0,0 +1,298 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG whose parts are built on demand.
+ * <p>
+ * Initially, only the entry methods are known. The nodes and edges of
+ * a method are materialized when any of its nodes is first queried,
+ * typically when control first reaches the entry of the method.
+ * The CFG of a method is built when the method is materialized or
+ * when one of its callers is materialized (as the call and return edges
+ * connect to its entry and exit), unless the CFG has been built by
+ * {@link CFGBuilder}, thus this ICFG does not require the CFGs of
+ * all reachable methods to be built beforehand.
+ * <p>
+ * Queries on a node materialize the method of the node if necessary,
+ * except {@link #getNodes()} (and iteration), which only covers the
+ * methods that have been materialized so far. Besides, the return edges
+ * from a callee only lead to its materialized callers.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private final ThrowAnalysis throwAnalysis = new ThrowAnalysis(
+            new AnalysisConfig(ThrowAnalysis.ID,
+                    "exception", "explicit", "algorithm", "intra"));
+
+    private final CFGBuilder cfgBuilder = new CFGBuilder(
+            new AnalysisConfig(CFGBuilder.ID,
+                    "exception", "explicit", "dump", false));
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+    private final Map<Stmt, CFG<Stmt>> stmtToCFG = Maps.newMap();
+
+    /**
+     * Map from the entries and exits of known but not yet materialized
+     * methods to the methods.
+     */
+    private final Map<Stmt, JMethod> pendingNodes = Maps.newMap();
+
+    /**
+     * Map from the statements of the reachable methods to the methods,
+     * which is built when a node of an unknown method is first queried.
+     */
+    private Map<Stmt, JMethod> stmtToMethod;
+
+    /**
+     * Nodes materialized since the last call of {@link #pollNewNodes()}.
+     */
+    private List<Stmt> newNodes = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    public LazyICFG(CallGraph<Invoke, JMethod> callGraph) {
+        super((CallGraph<Stmt, JMethod>) (CallGraph<?, ?>) callGraph);
+        entryMethods().forEach(this::addPendingMethod);
+    }
+
+    /**
+     * @return the CFG of given method, or null if the method has no body.
+     */
+    private CFG<Stmt> getCFGOf(JMethod method) {
+        if (method.isAbstract() || method.isNative()) {
+            return null;
+        }
+        IR ir = method.getIR();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID, null);
+        if (cfg == null) {
+            if (ir.getResult(ThrowAnalysis.ID, null) == null) {
+                ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+            }
+            cfg = cfgBuilder.analyze(ir);
+            ir.storeResult(CFGBuilder.ID, cfg);
+        }
+        return cfg;
+    }
+
+    private void addPendingMethod(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        if (cfg != null && !stmtToCFG.containsKey(cfg.getEntry())) {
+            pendingNodes.put(cfg.getEntry(), method);
+            pendingNodes.put(cfg.getExit(), method);
+        }
+    }
+
+    /**
+     * Materializes the method of given node if it has not been materialized.
+     */
+    private void ensureMaterialized(Stmt node) {
+        if (!stmtToCFG.containsKey(node)) {
+            JMethod method = pendingNodes.get(node);
+            if (method == null) {
+                method = findMethodOf(node);
+            }
+            if (method != null) {
+                materialize(method);
+            }
+        }
+    }
+
+    /**
+     * @return the reachable method containing given statement, or null
+     * if no such method.
+     */
+    private JMethod findMethodOf(Stmt stmt) {
+        if (stmtToMethod == null) {
+            stmtToMethod = Maps.newMap();
+            callGraph.reachableMethods()
+                    .filter(m -> !m.isAbstract() && !m.isNative())
+                    .forEach(m -> m.getIR().forEach(s -> stmtToMethod.put(s, m)));
+        }
+        return stmtToMethod.get(stmt);
+    }
+
+    private void materialize(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        pendingNodes.remove(cfg.getEntry());
+        pendingNodes.remove(cfg.getExit());
+        cfg.forEach(stmt -> stmtToCFG.put(stmt, cfg));
+        cfg.forEach(stmt -> {
+            cfg.getOutEdgesOf(stmt).forEach(edge -> {
+                ICFGEdge<Stmt> local = isCallSite(stmt) ?
+                        new CallToReturnEdge<>(edge) :
+                        new NormalEdge<>(edge);
+                outEdges.put(stmt, local);
+                inEdges.put(edge.getTarget(), local);
+            });
+            if (isCallSite(stmt)) {
+                getCalleesOf(stmt).forEach(callee -> addCallEdges(stmt, callee));
+            }
+        });
+        cfg.forEach(newNodes::add);
+    }
+
+    private void addCallEdges(Stmt callSite, JMethod callee) {
+        CFG<Stmt> calleeCFG = getCFGOf(callee);
+        if (calleeCFG == null) {
+            return;
+        }
+        addPendingMethod(callee);
+        Stmt entry = calleeCFG.getEntry();
+        CallEdge<Stmt> callEdge = new CallEdge<>(callSite, entry, callee);
+        outEdges.put(callSite, callEdge);
+        inEdges.put(entry, callEdge);
+        Stmt exit = calleeCFG.getExit();
+        Set<Var> retVars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        calleeCFG.getInEdgesOf(exit).forEach(retEdge -> {
+            if (retEdge.getKind() == Edge.Kind.RETURN) {
+                Return ret = (Return) retEdge.getSource();
+                if (ret.getValue() != null) {
+                    retVars.add(ret.getValue());
+                }
+            }
+            if (retEdge.isExceptional()) {
+                exceptions.addAll(retEdge.getExceptions());
+            }
+        });
+        getReturnSitesOf(callSite).forEach(retSite -> {
+            ReturnEdge<Stmt> retEdge = new ReturnEdge<>(
+                    exit, retSite, callSite, retVars, exceptions);
+            outEdges.put(exit, retEdge);
+            inEdges.put(retSite, retEdge);
+        });
+    }
+
+    /**
+     * Removes and returns the nodes that have been materialized since
+     * the last call of this method, so that clients can process the nodes
+     * of newly materialized methods without rescanning this ICFG.
+     */
+    public List<Stmt> pollNewNodes() {
+        if (newNodes.isEmpty()) {
+            return List.of();
+        }
+        List<Stmt> result = newNodes;
+        newNodes = new ArrayList<>();
+        return result;
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        ensureMaterialized(stmt);
+        return inEdges.get(stmt);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        ensureMaterialized(stmt);
+        return outEdges.get(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return getCFGOf(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt stmt) {
+        assert isCallSite(stmt);
+        ensureMaterialized(stmt);
+        return stmtToCFG.get(stmt).getSuccsOf(stmt);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        ensureMaterialized(stmt);
+        CFG<Stmt> cfg = stmtToCFG.get(stmt);
+        return cfg != null ? cfg.getMethod() : null;
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        ensureMaterialized(stmt);
+        return stmtToCFG.containsKey(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    /**
+     * @return the nodes of the methods that have been materialized so far.
+     */
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(stmtToCFG.keySet());
+    }
+}
@@ -75,6 +75,27 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return {@code true} if {@code subtype} is {@code supertype}
+     * or a (direct or indirect) subclass, implementor,
+     * or subinterface of {@code supertype}.
+     */
+    boolean isSubtype(JClass supertype, JClass subtype);
+
+    /**
+     * @return all subclasses of given class (including itself), or all
+     * implementors and subinterfaces of given interface (including itself).
+     * The returned collection is a read-only view.
+     */
+    Collection<JClass> getAllSubtypesOf(JClass jclass);
+
+    /**
+     * @return the concrete (i.e., non-abstract and non-interface) classes
+     * in {@link #getAllSubtypesOf(JClass) all subtypes} of given class.
+     * The returned collection is a read-only view.
+     */
+    Collection<JClass> getAllConcreteSubtypesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
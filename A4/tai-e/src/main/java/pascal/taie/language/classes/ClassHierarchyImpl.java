@@ -29,6 +29,7 @@ import pascal.taie.util.AnalysisException;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -65,6 +66,12 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Index for subtype queries, which is built on demand,
+     * and discarded when new classes are added.
+     */
+    private volatile SubtypeIndex subtypeIndex;
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -97,6 +104,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public void addClass(JClass jclass) {
+        subtypeIndex = null;
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
@@ -160,6 +168,47 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public boolean isSubtype(JClass supertype, JClass subtype) {
+        SubtypeIndex index = getSubtypeIndex();
+        if (index.contains(supertype) && index.contains(subtype)) {
+            return index.isSubtype(supertype, subtype);
+        }
+        // a class absent in the index is neither in this hierarchy
+        // nor a supertype of any class in it
+        return supertype.equals(subtype);
+    }
+
+    @Override
+    public Collection<JClass> getAllSubtypesOf(JClass jclass) {
+        SubtypeIndex index = getSubtypeIndex();
+        return index.contains(jclass) ?
+                index.getAllSubtypesOf(jclass) : List.of(jclass);
+    }
+
+    @Override
+    public Collection<JClass> getAllConcreteSubtypesOf(JClass jclass) {
+        SubtypeIndex index = getSubtypeIndex();
+        if (index.contains(jclass)) {
+            return index.getAllConcreteSubtypesOf(jclass);
+        }
+        return jclass.isInterface() || jclass.isAbstract() ?
+                List.of() : List.of(jclass);
+    }
+
+    /**
+     * @return the subtype index of the current classes, which is
+     * (re)built on the first query after new classes are added.
+     */
+    private SubtypeIndex getSubtypeIndex() {
+        SubtypeIndex index = subtypeIndex;
+        if (index == null) {
+            index = new SubtypeIndex(this);
+            subtypeIndex = index;
+        }
+        return index;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
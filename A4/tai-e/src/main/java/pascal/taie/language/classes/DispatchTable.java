@@ -0,0 +1,161 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed virtual dispatch tables of the classes in a class hierarchy.
+ * <p>
+ * The virtual table (vtable) of each class maps every {@link Subsignature}
+ * to the non-abstract method that is dispatched to for the class,
+ * following the superclass chain. Vtables are built on demand, and each
+ * vtable is derived from the vtable of the superclass, so the hierarchy
+ * is walked only once per class. As subsignatures are canonicalized,
+ * each lookup is a single hash-map access.
+ * <p>
+ * Besides, the CHA targets of virtual calls are memoized per
+ * {@link MethodRef}, thus call sites that share the same method reference
+ * are resolved only once. The subtypes of the declaring class are
+ * enumerated via {@link ClassHierarchy#getAllSubtypesOf(JClass)}.
+ * <p>
+ * This class is thread-safe.
+ */
+public class DispatchTable {
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Map from each class to its vtable.
+     */
+    private final Map<JClass, Map<Subsignature, JMethod>> vtables =
+            Maps.newConcurrentMap();
+
+    /**
+     * Map from each method reference to its CHA targets.
+     */
+    private final Map<MethodRef, Set<JMethod>> chaTargets =
+            Maps.newConcurrentMap();
+
+    public DispatchTable(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Looks up the target method based on given class and method subsignature.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    public @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        return getVTable(jclass).get(subsignature);
+    }
+
+    /**
+     * @return the vtable of given class.
+     */
+    private Map<Subsignature, JMethod> getVTable(JClass jclass) {
+        Map<Subsignature, JMethod> vtable = vtables.get(jclass);
+        if (vtable == null) {
+            // build the vtable outside computeIfAbsent(), as building
+            // recursively requests the vtables of superclasses
+            JClass superClass = jclass.getSuperClass();
+            Map<Subsignature, JMethod> superVTable = superClass != null ?
+                    getVTable(superClass) : Map.of();
+            vtable = buildVTable(jclass, superVTable);
+            Map<Subsignature, JMethod> prev = vtables.putIfAbsent(jclass, vtable);
+            if (prev != null) {
+                vtable = prev;
+            }
+        }
+        return vtable;
+    }
+
+    private static Map<Subsignature, JMethod> buildVTable(
+            JClass jclass, Map<Subsignature, JMethod> superVTable) {
+        Map<Subsignature, JMethod> vtable = null;
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            if (!method.isAbstract()) {
+                if (vtable == null) {
+                    vtable = Maps.newMap(superVTable.size() +
+                            jclass.getDeclaredMethods().size());
+                    vtable.putAll(superVTable);
+                }
+                vtable.put(method.getSubsignature(), method);
+            }
+        }
+        // classes without concrete methods share the vtable of superclass
+        return vtable != null ? Collections.unmodifiableMap(vtable) : superVTable;
+    }
+
+    /**
+     * @return the targets of a virtual call on given method reference
+     * resolved by CHA, i.e., the methods dispatched to for the declaring
+     * class of the reference and all its subclasses, subinterfaces,
+     * and implementors.
+     */
+    public Set<JMethod> getCHATargets(MethodRef methodRef) {
+        Set<JMethod> targets = chaTargets.get(methodRef);
+        if (targets == null) {
+            targets = Collections.unmodifiableSet(resolveCHATargets(methodRef));
+            Set<JMethod> prev = chaTargets.putIfAbsent(methodRef, targets);
+            if (prev != null) {
+                targets = prev;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Discards the vtables of the classes, and the CHA targets of the
+     * method references declared in the classes, which satisfy given
+     * predicate. They are recomputed on demand afterwards.
+     * This is used to update the table after some classes changed.
+     */
+    public void invalidate(Predicate<JClass> affected) {
+        vtables.keySet().removeIf(affected);
+        chaTargets.keySet().removeIf(ref -> affected.test(ref.getDeclaringClass()));
+    }
+
+    private Set<JMethod> resolveCHATargets(MethodRef methodRef) {
+        Subsignature subsignature = methodRef.getSubsignature();
+        Set<JMethod> targets = Sets.newHybridSet();
+        for (JClass jclass : hierarchy.getAllSubtypesOf(
+                methodRef.getDeclaringClass())) {
+            JMethod target = dispatch(jclass, subsignature);
+            if (target != null) {
+                targets.add(target);
+            }
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Precomputed index for subtype queries on a snapshot of class hierarchy.
+ * <p>
+ * The index covers the classes in the hierarchy and all their
+ * (direct and indirect) superclasses and superinterfaces.
+ * The classes (non-interfaces) form a tree via their superclasses. They are
+ * numbered in DFS pre-order, so that the subclasses of each class occupy
+ * a contiguous interval of numbers, and {@code sub} is a subclass of
+ * {@code sup} iff {@code sub}'s number falls in {@code sup}'s interval.
+ * <p>
+ * For each interface, the index keeps a bitset over the class numbers of
+ * its (direct and indirect) implementors, and a bitset over the interface
+ * numbers of its (direct and indirect) subinterfaces. Besides, a bitset
+ * over the class numbers marks the concrete (non-abstract) classes.
+ * <p>
+ * The index is immutable, and needs to be rebuilt when new classes
+ * are added to the hierarchy.
+ */
+class SubtypeIndex {
+
+    /**
+     * Classes in DFS pre-order.
+     */
+    private final JClass[] classes;
+
+    /**
+     * Map from each class to its pre-order number.
+     */
+    private final Map<JClass, Integer> classNumbers;
+
+    /**
+     * Exclusive end of the pre-order interval of each class.
+     */
+    private final int[] ends;
+
+    /**
+     * Numbers of the concrete classes.
+     */
+    private final BitSet concreteClasses;
+
+    private final JClass[] interfaces;
+
+    /**
+     * Map from each interface to its number.
+     */
+    private final Map<JClass, Integer> interfaceNumbers;
+
+    /**
+     * Implementors of each interface, indexed by interface numbers.
+     */
+    private final BitSet[] implementors;
+
+    /**
+     * Subinterfaces of each interface, indexed by interface numbers.
+     */
+    private final BitSet[] subinterfaces;
+
+    SubtypeIndex(ClassHierarchy hierarchy) {
+        List<JClass> roots = new ArrayList<>();
+        List<JClass> ifaces = new ArrayList<>();
+        for (JClass c : collectClasses(hierarchy)) {
+            if (c.isInterface()) {
+                ifaces.add(c);
+            } else if (c.getSuperClass() == null) {
+                roots.add(c);
+            }
+        }
+        // number classes in DFS pre-order
+        List<JClass> order = new ArrayList<>();
+        classNumbers = Maps.newMap();
+        List<Integer> endList = new ArrayList<>();
+        Deque<JClass> stack = new ArrayDeque<>();
+        for (JClass root : roots) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                JClass c = stack.peek();
+                Integer number = classNumbers.get(c);
+                if (number == null) {
+                    classNumbers.put(c, order.size());
+                    order.add(c);
+                    endList.add(-1);
+                    hierarchy.getDirectSubclassesOf(c).forEach(sub -> {
+                        if (!classNumbers.containsKey(sub)) {
+                            stack.push(sub);
+                        }
+                    });
+                } else {
+                    // all subclasses of c have been numbered
+                    stack.pop();
+                    if (endList.get(number) == -1) {
+                        endList.set(number, order.size());
+                    }
+                }
+            }
+        }
+        classes = order.toArray(new JClass[0]);
+        ends = endList.stream().mapToInt(Integer::intValue).toArray();
+        concreteClasses = new BitSet(classes.length);
+        for (int i = 0; i < classes.length; ++i) {
+            if (!classes[i].isAbstract()) {
+                concreteClasses.set(i);
+            }
+        }
+        // number interfaces, and compute their subtypes
+        interfaces = ifaces.toArray(new JClass[0]);
+        interfaceNumbers = Maps.newMap(interfaces.length);
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaceNumbers.put(interfaces[i], i);
+        }
+        implementors = new BitSet[interfaces.length];
+        subinterfaces = new BitSet[interfaces.length];
+        for (int i = 0; i < interfaces.length; ++i) {
+            computeSubtypes(hierarchy, i);
+        }
+    }
+
+    /**
+     * @return the classes in given hierarchy and their (direct and indirect)
+     * superclasses and superinterfaces, which may be absent in the hierarchy.
+     */
+    private static Set<JClass> collectClasses(ClassHierarchy hierarchy) {
+        Set<JClass> result = Sets.newSet();
+        Deque<JClass> workList = new ArrayDeque<>();
+        hierarchy.allClasses().forEach(workList::add);
+        while (!workList.isEmpty()) {
+            JClass c = workList.poll();
+            if (result.add(c)) {
+                if (c.getSuperClass() != null) {
+                    workList.add(c.getSuperClass());
+                }
+                workList.addAll(c.getInterfaces());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes implementors and subinterfaces of the i-th interface,
+     * after computing those of its subinterfaces.
+     */
+    private void computeSubtypes(ClassHierarchy hierarchy, int i) {
+        if (implementors[i] != null) {
+            return;
+        }
+        BitSet impls = new BitSet(classes.length);
+        BitSet subs = new BitSet(interfaces.length);
+        for (JClass impl : hierarchy.getDirectImplementorsOf(interfaces[i])) {
+            Integer number = classNumbers.get(impl);
+            if (number != null) {
+                impls.set(number, ends[number]);
+            }
+        }
+        for (JClass sub : hierarchy.getDirectSubinterfacesOf(interfaces[i])) {
+            Integer j = interfaceNumbers.get(sub);
+            if (j != null) {
+                computeSubtypes(hierarchy, j);
+                impls.or(implementors[j]);
+                subs.set(j);
+                subs.or(subinterfaces[j]);
+            }
+        }
+        implementors[i] = impls;
+        subinterfaces[i] = subs;
+    }
+
+    /**
+     * @return {@code true} if given class is covered by this index.
+     */
+    boolean contains(JClass jclass) {
+        return classNumbers.containsKey(jclass) ||
+                interfaceNumbers.containsKey(jclass);
+    }
+
+    /**
+     * Both given classes must be covered by this index.
+     *
+     * @return {@code true} if {@code subtype} is {@code supertype}
+     * or a (direct or indirect) subclass, implementor,
+     * or subinterface of {@code supertype}.
+     */
+    boolean isSubtype(JClass supertype, JClass subtype) {
+        if (supertype.equals(subtype)) {
+            return true;
+        }
+        if (supertype.isInterface()) {
+            int i = interfaceNumbers.get(supertype);
+            if (subtype.isInterface()) {
+                return subinterfaces[i].get(interfaceNumbers.get(subtype));
+            } else {
+                return implementors[i].get(classNumbers.get(subtype));
+            }
+        } else if (subtype.isInterface()) {
+            // interfaces are not in the tree of classes
+            return false;
+        } else {
+            int sup = classNumbers.get(supertype);
+            int sub = classNumbers.get(subtype);
+            return sup <= sub && sub < ends[sup];
+        }
+    }
+
+    /**
+     * @return a view of all subclasses of given class (including itself),
+     * or the implementors and subinterfaces of given interface
+     * (including itself). The view does not copy the index.
+     */
+    Collection<JClass> getAllSubtypesOf(JClass jclass) {
+        if (jclass.isInterface()) {
+            int i = interfaceNumbers.get(jclass);
+            return new SubtypeView(jclass, implementors[i], subinterfaces[i]);
+        } else {
+            int number = classNumbers.get(jclass);
+            return new IntervalView(number, ends[number]);
+        }
+    }
+
+    /**
+     * @return a view of the concrete classes among
+     * {@link #getAllSubtypesOf(JClass) all subtypes} of given class.
+     */
+    Collection<JClass> getAllConcreteSubtypesOf(JClass jclass) {
+        if (jclass.isInterface()) {
+            int i = interfaceNumbers.get(jclass);
+            return new ConcreteView(implementors[i], 0, classes.length);
+        } else {
+            int number = classNumbers.get(jclass);
+            return new ConcreteView(null, number, ends[number]);
+        }
+    }
+
+    /**
+     * View of the classes in a pre-order interval.
+     */
+    private class IntervalView extends AbstractCollection<JClass> {
+
+        private final int start;
+
+        private final int end;
+
+        private IntervalView(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof JClass c && !c.isInterface()) {
+                Integer number = classNumbers.get(c);
+                return number != null && start <= number && number < end;
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public JClass next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return classes[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    /**
+     * View of the concrete classes in a pre-order interval,
+     * which are also in {@code members} if it is non-null.
+     */
+    private class ConcreteView extends AbstractCollection<JClass> {
+
+        private final BitSet members;
+
+        private final int start;
+
+        private final int end;
+
+        private int size = -1;
+
+        private ConcreteView(BitSet members, int start, int end) {
+            this.members = members;
+            this.start = start;
+            this.end = end;
+        }
+
+        private int nextNumber(int from) {
+            int i = concreteClasses.nextSetBit(from);
+            while (i >= 0 && i < end && members != null && !members.get(i)) {
+                i = concreteClasses.nextSetBit(i + 1);
+            }
+            return i >= 0 && i < end ? i : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof JClass c && !c.isInterface()) {
+                Integer number = classNumbers.get(c);
+                return number != null && start <= number && number < end &&
+                        concreteClasses.get(number) &&
+                        (members == null || members.get(number));
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private int next = nextNumber(start);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public JClass next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    JClass c = classes[next];
+                    next = nextNumber(next + 1);
+                    return c;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            if (size == -1) {
+                int n = 0;
+                for (int i = nextNumber(start); i >= 0; i = nextNumber(i + 1)) {
+                    ++n;
+                }
+                size = n;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * View of an interface, its implementors, and its subinterfaces.
+     */
+    private class SubtypeView extends AbstractCollection<JClass> {
+
+        private final JClass iface;
+
+        private final BitSet impls;
+
+        private final BitSet subs;
+
+        private SubtypeView(JClass iface, BitSet impls, BitSet subs) {
+            this.iface = iface;
+            this.impls = impls;
+            this.subs = subs;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof JClass c && SubtypeIndex.this.contains(c) &&
+                    isSubtype(iface, c);
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private boolean self = true;
+
+                private int nextClass = impls.nextSetBit(0);
+
+                private int nextIface = subs.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return self || nextClass >= 0 || nextIface >= 0;
+                }
+
+                @Override
+                public JClass next() {
+                    if (self) {
+                        self = false;
+                        return iface;
+                    } else if (nextClass >= 0) {
+                        JClass c = classes[nextClass];
+                        nextClass = impls.nextSetBit(nextClass + 1);
+                        return c;
+                    } else if (nextIface >= 0) {
+                        JClass i = interfaces[nextIface];
+                        nextIface = subs.nextSetBit(nextIface + 1);
+                        return i;
+                    }
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return 1 + impls.cardinality() + subs.cardinality();
+        }
+    }
+}
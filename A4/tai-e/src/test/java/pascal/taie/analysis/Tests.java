@@ -27,6 +27,7 @@ import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +62,29 @@ public final class Tests {
      * @param opts      options for the analysis
      */
     public static void test(String main, String classPath, String id, String... opts) {
+        doTest(main, classPath, id, getExpectedFile(classPath, main, id), opts);
+    }
+
+    /**
+     * Starts an analysis for a specific test case, and compares the result
+     * with the expected file of given variant of the analysis, i.e.,
+     * "main-id-variant-expected.txt". The variants whose results are
+     * the same as the default ones share the default expected file.
+     *
+     * @param variant name of the variant, e.g., the solver of the analysis
+     * @see #test(String, String, String, String...)
+     */
+    public static void testVariant(String main, String classPath, String id,
+                                   String variant, String... opts) {
+        String file = getExpectedFile(classPath, main, id + "-" + variant);
+        if (!Files.exists(Paths.get(file))) {
+            file = getExpectedFile(classPath, main, id);
+        }
+        doTest(main, classPath, id, file, opts);
+    }
+
+    private static void doTest(String main, String classPath, String id,
+                               String file, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         Collections.addAll(args, "-cp", classPath);
@@ -82,7 +106,6 @@ public final class Tests {
         }
         // set up result processor
         String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        String file = getExpectedFile(classPath, main, id);
         String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
                 ResultProcessor.ID, id, action, file);
         Collections.addAll(args, "-a", processArg);
@@ -23,16 +23,45 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 
+import java.util.List;
+
+/**
+ * Runs the test cases with each solver. The parallel solver, and the
+ * worklist solver on the lazy ICFG, compute the same results as the
+ * worklist solver, thus they share the expected files. The summary-based
+ * solver distinguishes calls with different entry facts, thus its results
+ * may be more precise, which are given by the expected files of variant
+ * "summary".
+ */
+@RunWith(Parameterized.class)
 public class InterCPTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
 
+    @Parameterized.Parameters(name = "solver:{0},lazy-icfg:{1}")
+    public static List<Object[]> solvers() {
+        return List.of(new Object[]{"worklist", false},
+                new Object[]{"worklist", true},
+                new Object[]{"summary", false},
+                new Object[]{"parallel", false});
+    }
+
+    @Parameterized.Parameter
+    public String solver;
+
+    @Parameterized.Parameter(1)
+    public boolean lazyICFG;
+
     void test(String inputClass) {
-        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha"
+        Tests.testVariant(inputClass, CLASS_PATH, InterConstantPropagation.ID, solver,
+                "edge-refine:false;alias-aware:false;solver:" + solver +
+                        ";lazy-icfg:" + lazyICFG,
+                "-a", "cg=algorithm:cha"
                 // , "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                             // to output ICFGs for the test cases
         );
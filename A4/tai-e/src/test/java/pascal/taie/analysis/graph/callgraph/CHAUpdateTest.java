@@ -0,0 +1,164 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassBuilder;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.language.type.ClassType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests {@link CHABuilder#update(Collection)} by removing an overriding
+ * method from a class and adding it back. After each update, the delta
+ * should contain exactly the call edge to the overriding method, and
+ * the updated call graph should be the same as the one built from scratch.
+ */
+public class CHAUpdateTest {
+
+    private static final String DIR = "src/test/resources/cha/";
+
+    @Test
+    public void testRemoveAndAddOverride() {
+        Tests.test("VirtualCall", DIR, CallGraphBuilder.ID, "algorithm:cha");
+        CHABuilder builder = new CHABuilder();
+        CallGraph<Invoke, JMethod> callGraph = builder.build();
+        JClass c = World.get().getClassHierarchy().getClass("C");
+        JMethod foo = c.getDeclaredMethod("foo");
+        Set<Edge<Invoke, JMethod>> edgesToFoo = callGraph.edgesInTo(foo)
+                .collect(Collectors.toSet());
+        Assert.assertEquals(1, edgesToFoo.size());
+        List<JMethod> methods = List.copyOf(c.getDeclaredMethods());
+        try {
+            // remove the override C.foo(), then b.foo() dispatches to A.foo()
+            rebuild(c, methods.stream().filter(m -> m != foo).toList());
+            CallGraphDelta<Invoke, JMethod> delta = builder.update(List.of(c));
+            Assert.assertEquals(Set.of(), delta.addedEdges());
+            Assert.assertEquals(edgesToFoo, delta.removedEdges());
+            Assert.assertFalse(callGraph.contains(foo));
+            assertSameEdges(new CHABuilder().build(), callGraph);
+            // add the override back
+            rebuild(c, methods);
+            delta = builder.update(List.of(c));
+            Assert.assertEquals(edgesToFoo, delta.addedEdges());
+            Assert.assertEquals(Set.of(), delta.removedEdges());
+            Assert.assertTrue(callGraph.contains(foo));
+            assertSameEdges(new CHABuilder().build(), callGraph);
+        } finally {
+            rebuild(c, methods);
+        }
+    }
+
+    private static void assertSameEdges(CallGraph<Invoke, JMethod> expected,
+                                        CallGraph<Invoke, JMethod> actual) {
+        Assert.assertEquals(expected.reachableMethods().collect(Collectors.toSet()),
+                actual.reachableMethods().collect(Collectors.toSet()));
+        Assert.assertEquals(expected.edges().collect(Collectors.toSet()),
+                actual.edges().collect(Collectors.toSet()));
+    }
+
+    /**
+     * Rebuilds given class in place with the given declared methods,
+     * and keeps the other information of the class.
+     */
+    private static void rebuild(JClass jclass, Collection<JMethod> methods) {
+        Set<Modifier> modifiers = jclass.getModifiers();
+        String simpleName = jclass.getSimpleName();
+        ClassType type = jclass.getType();
+        JClass superClass = jclass.getSuperClass();
+        Collection<JClass> interfaces = jclass.getInterfaces();
+        JClass outerClass = jclass.getOuterClass();
+        Collection<JField> fields = List.copyOf(jclass.getDeclaredFields());
+        AnnotationHolder annotationHolder =
+                AnnotationHolder.make(jclass.getAnnotations());
+        boolean isApplication = jclass.isApplication();
+        jclass.build(new JClassBuilder() {
+
+            @Override
+            public void build(JClass jclass) {
+            }
+
+            @Override
+            public Set<Modifier> getModifiers() {
+                return modifiers;
+            }
+
+            @Override
+            public String getSimpleName() {
+                return simpleName;
+            }
+
+            @Override
+            public ClassType getClassType() {
+                return type;
+            }
+
+            @Override
+            public JClass getSuperClass() {
+                return superClass;
+            }
+
+            @Override
+            public Collection<JClass> getInterfaces() {
+                return interfaces;
+            }
+
+            @Override
+            public JClass getOuterClass() {
+                return outerClass;
+            }
+
+            @Override
+            public Collection<JField> getDeclaredFields() {
+                return fields;
+            }
+
+            @Override
+            public Collection<JMethod> getDeclaredMethods() {
+                return methods;
+            }
+
+            @Override
+            public AnnotationHolder getAnnotationHolder() {
+                return annotationHolder;
+            }
+
+            @Override
+            public boolean isApplication() {
+                return isApplication;
+            }
+        });
+    }
+}
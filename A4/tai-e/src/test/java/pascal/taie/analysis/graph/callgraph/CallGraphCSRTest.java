@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the queries on frozen call graphs, which are answered by
+ * {@link CallGraphCSR}, with the ones on equal call graphs before freezing.
+ */
+public class CallGraphCSRTest {
+
+    private static final int GRAPHS = 200;
+
+    @Test
+    public void testQueries() {
+        for (int seed = 0; seed < GRAPHS; ++seed) {
+            StringCallGraph expected = StringCallGraph.random(seed, 30);
+            StringCallGraph frozen = StringCallGraph.random(seed, 30);
+            frozen.freeze();
+            Assert.assertTrue(frozen.isFrozen());
+            Assert.assertEquals(expected.getNumberOfEdges(), frozen.getNumberOfEdges());
+            Assert.assertEquals(expected.edges().collect(Collectors.toSet()),
+                    frozen.edges().collect(Collectors.toSet()));
+            // also query the methods and call sites absent in the graphs
+            List<String> methods = new ArrayList<>();
+            List<String> callSites = new ArrayList<>();
+            for (int i = 0; i <= 31; ++i) {
+                methods.add(StringCallGraph.method(i));
+                callSites.addAll(expected.getCallSitesIn(StringCallGraph.method(i)));
+            }
+            callSites.add("absent call site");
+            for (String method : methods) {
+                assertSetEquals(expected.getCallersOf(method),
+                        frozen.getCallersOf(method), callSites);
+                assertSetEquals(expected.getCallSitesIn(method),
+                        frozen.getCallSitesIn(method), callSites);
+                assertSetEquals(expected.getCalleesOfM(method),
+                        frozen.getCalleesOfM(method), methods);
+                Assert.assertEquals(expected.edgesInTo(method).collect(Collectors.toSet()),
+                        frozen.edgesInTo(method).collect(Collectors.toSet()));
+            }
+            for (String callSite : callSites) {
+                assertSetEquals(expected.getCalleesOf(callSite),
+                        frozen.getCalleesOf(callSite), methods);
+                Assert.assertEquals(expected.getContainerOf(callSite),
+                        frozen.getContainerOf(callSite));
+                Assert.assertEquals(expected.edgesOutOf(callSite).collect(Collectors.toSet()),
+                        frozen.edgesOutOf(callSite).collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    /**
+     * Asserts that the sets contain the same elements, and that {@code actual}
+     * answers the membership of each candidate (and of an object of another
+     * type) in the same way as {@code expected}. The elements are copied
+     * before comparison as the sets may be views without equals().
+     */
+    private static void assertSetEquals(Set<String> expected, Set<String> actual,
+                                        List<String> candidates) {
+        Assert.assertEquals(Set.copyOf(expected), Set.copyOf(actual));
+        Assert.assertEquals(expected.size(), actual.size());
+        for (String candidate : candidates) {
+            Assert.assertEquals(expected.contains(candidate), actual.contains(candidate));
+        }
+        Assert.assertFalse(actual.contains(42));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testModifyFrozen() {
+        StringCallGraph callGraph = StringCallGraph.random(0, 30);
+        callGraph.freeze();
+        callGraph.addReachableMethod(StringCallGraph.method(100));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exports call graphs in each format, and checks that
+ * {@link CallGraphExporter#load} reads back the same entry methods
+ * and edges in the order of {@link CallGraph#entryMethods()}
+ * and {@link CallGraph#edges()}.
+ */
+@RunWith(Parameterized.class)
+public class CallGraphExporterTest {
+
+    private static final int GRAPHS = 50;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CallGraphExporter.Format> formats() {
+        return Arrays.asList(CallGraphExporter.Format.values());
+    }
+
+    @Parameterized.Parameter
+    public CallGraphExporter.Format format;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (int seed = 0; seed < GRAPHS; ++seed) {
+            StringCallGraph callGraph = StringCallGraph.random(seed, 30);
+            testRoundTrip(callGraph);
+            callGraph.freeze();
+            testRoundTrip(callGraph);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        testRoundTrip(new StringCallGraph());
+    }
+
+    private void testRoundTrip(StringCallGraph callGraph) throws IOException {
+        Path file = Files.createTempFile("cg", format.getExtension());
+        try {
+            CallGraphExporter.export(callGraph, format, file);
+            List<String> entries = new ArrayList<>();
+            List<String> edges = new ArrayList<>();
+            CallGraphExporter.load(file, new CallGraphExporter.Visitor() {
+                @Override
+                public void visitEntry(String method) {
+                    entries.add(method);
+                }
+
+                @Override
+                public void visitEdge(String caller, String callSite,
+                                      CallKind kind, String callee) {
+                    edges.add(describe(caller, callSite, kind, callee));
+                }
+            });
+            Assert.assertEquals(callGraph.entryMethods().toList(), entries);
+            Assert.assertEquals(callGraph.edges()
+                    .map(e -> describe(callGraph.getContainerOf(e.getCallSite()),
+                            e.getCallSite(), e.getKind(), e.getCallee()))
+                    .collect(Collectors.toList()), edges);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String describe(String caller, String callSite,
+                                   CallKind kind, String callee) {
+        return String.join(" | ", caller, callSite, kind.name(), callee);
+    }
+}
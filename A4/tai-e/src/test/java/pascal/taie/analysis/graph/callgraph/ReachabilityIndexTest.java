@@ -0,0 +1,122 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the reachability given by {@link ReachabilityIndex} with
+ * the methods found by traversing the CHA call graphs of the test cases.
+ * The index is built with the default label budget, and with budget 0,
+ * which makes all labels computed on each query without caching.
+ */
+@RunWith(Parameterized.class)
+public class ReachabilityIndexTest {
+
+    private static final String DIR = "src/test/resources/cha/";
+
+    @Parameterized.Parameters(name = "label-budget:{0}")
+    public static List<Long> labelBudgets() {
+        return List.of(8L << 20, 0L);
+    }
+
+    @Parameterized.Parameter
+    public long labelBudget;
+
+    private void test(String main) {
+        Tests.test(main, DIR, CallGraphBuilder.ID, "algorithm:cha");
+        CallGraph<Invoke, JMethod> callGraph =
+                World.get().getResult(CallGraphBuilder.ID);
+        ReachabilityIndex<JMethod> index =
+                new ReachabilityIndex<>(callGraph, labelBudget);
+        Set<JMethod> methods = callGraph.reachableMethods()
+                .collect(Collectors.toSet());
+        for (JMethod source : methods) {
+            Set<JMethod> reachable = traverse(callGraph, source);
+            Assert.assertEquals("Reachable methods of " + source,
+                    reachable, index.getReachableMethods(source));
+            for (JMethod target : methods) {
+                Assert.assertEquals("Reachability from " + source + " to " + target,
+                        reachable.contains(target), index.canReach(source, target));
+            }
+            for (JMethod m : index.getSCCOf(source)) {
+                Assert.assertTrue(index.canReach(m, source));
+                Assert.assertTrue(index.canReach(source, m));
+            }
+        }
+    }
+
+    /**
+     * @return the methods reachable from {@code source} in the call graph,
+     * computed by a breadth-first traversal.
+     */
+    private static Set<JMethod> traverse(
+            CallGraph<Invoke, JMethod> callGraph, JMethod source) {
+        Set<JMethod> reachable = Sets.newSet();
+        Deque<JMethod> queue = new ArrayDeque<>();
+        reachable.add(source);
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            for (JMethod callee : callGraph.getCalleesOfM(queue.poll())) {
+                if (reachable.add(callee)) {
+                    queue.add(callee);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    @Test
+    public void testStaticCall() {
+        test("StaticCall");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod");
+    }
+}
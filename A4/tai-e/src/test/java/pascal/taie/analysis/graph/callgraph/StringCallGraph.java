@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Call graph whose methods and call sites are strings, which is used
+ * to test the storage and export of call graphs without building
+ * a program. The strings contain the characters to be escaped in XML,
+ * and in TSV (tabs, line breaks, and backslashes).
+ */
+class StringCallGraph extends AbstractCallGraph<String, String> {
+
+    /**
+     * @return a random call graph with up to given number of methods.
+     * The graphs generated for the same seed are equal.
+     */
+    static StringCallGraph random(long seed, int maxMethods) {
+        Random random = new Random(seed);
+        StringCallGraph callGraph = new StringCallGraph();
+        int nMethods = 1 + random.nextInt(maxMethods);
+        callGraph.addEntryMethod(method(0));
+        for (int i = 0; i < nMethods; ++i) {
+            callGraph.addReachableMethod(method(i));
+        }
+        for (int i = 0; i < nMethods; ++i) {
+            for (int j = random.nextInt(4); j > 0; --j) {
+                String callSite = method(i) + "[" + j + "@L" + j + "] \"call\" & return\t\\n\n";
+                // like the call graphs of programs, all edges of
+                // a call site are of the same kind
+                CallKind kind = CallKind.values()[random.nextInt(CallKind.values().length)];
+                for (int k = random.nextInt(4); k > 0; --k) {
+                    callGraph.addEdge(method(i), new Edge<>(
+                            kind, callSite, method(random.nextInt(nMethods))));
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    static String method(int i) {
+        return "<C: void m" + i + "(java.util.List<T>)>";
+    }
+
+    void addEntryMethod(String method) {
+        checkNotFrozen();
+        entryMethods.add(method);
+    }
+
+    void addReachableMethod(String method) {
+        checkNotFrozen();
+        reachableMethods.add(method);
+    }
+
+    void addEdge(String container, Edge<String, String> edge) {
+        checkNotFrozen();
+        callSiteToContainer.put(edge.getCallSite(), container);
+        callSitesIn.put(container, edge.getCallSite());
+        callSiteToEdges.put(edge.getCallSite(), edge);
+        calleeToEdges.put(edge.getCallee(), edge);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return false;
+    }
+
+    @Override
+    public Set<String> getResult(Stmt stmt) {
+        return Set.of();
+    }
+}
@@ -23,12 +23,69 @@
 package pascal.taie.analysis.graph.callgraph.cha;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Runs the test cases with each call graph building algorithm and option.
+ * The options do not change the call graphs, thus they share the expected
+ * files of their algorithms. The expected files of algorithm "rta" are
+ * given for the test cases whose RTA call graphs are smaller than
+ * the CHA ones.
+ */
+@RunWith(Parameterized.class)
 public class CHATest {
-    
-    protected static void test(String main) {
-        Tests.test(main, "src/test/resources/cha/", "cg", "algorithm:cha");
+
+    private static final String DIR = "src/test/resources/cha/";
+
+    /**
+     * Option that is replaced by "cache-dir" with a new temporary directory.
+     */
+    private static final String CACHE_DIR = "cache-dir";
+
+    @Parameterized.Parameters(name = "{0}:{1}")
+    public static List<Object[]> options() {
+        return List.of(new Object[]{"cha", ""},
+                new Object[]{"rta", ""},
+                new Object[]{"cha", "parallel:true"},
+                new Object[]{"cha", "freeze:true"},
+                new Object[]{"cha", CACHE_DIR});
+    }
+
+    @Parameterized.Parameter
+    public String algorithm;
+
+    /**
+     * Options given to the call graph builder besides the algorithm.
+     */
+    @Parameterized.Parameter(1)
+    public String options;
+
+    protected void test(String main) {
+        if (options.equals(CACHE_DIR)) {
+            // the first run writes the cache, and the second run reads it
+            String opts = "algorithm:" + algorithm + ";cache-dir:" + newCacheDir();
+            Tests.testVariant(main, DIR, "cg", algorithm, opts);
+            Tests.testVariant(main, DIR, "cg", algorithm, opts);
+        } else {
+            String opts = "algorithm:" + algorithm +
+                    (options.isEmpty() ? "" : ";" + options);
+            Tests.testVariant(main, DIR, "cg", algorithm, opts);
+        }
+    }
+
+    private static String newCacheDir() {
+        try {
+            return Files.createTempDirectory("cg-cache").toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Test
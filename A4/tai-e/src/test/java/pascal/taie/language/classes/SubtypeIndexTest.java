@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the subtype queries of {@link ClassHierarchy}, which are
+ * answered by {@link SubtypeIndex}, with the subtypes found by traversing
+ * the direct subclasses, implementors and subinterfaces, for the
+ * application classes of the test cases and all their supertypes.
+ */
+public class SubtypeIndexTest {
+
+    private static final String DIR = "src/test/resources/cha/";
+
+    private void test(String main) {
+        Tests.test(main, DIR, CallGraphBuilder.ID, "algorithm:cha");
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        Set<JClass> types = Sets.newSet();
+        hierarchy.applicationClasses().forEach(c -> addSupertypes(c, types));
+        for (JClass type : types) {
+            Set<JClass> subtypes = traverse(hierarchy, type);
+            Assert.assertEquals("Subtypes of " + type,
+                    subtypes, Set.copyOf(hierarchy.getAllSubtypesOf(type)));
+            Assert.assertEquals("Size of subtypes of " + type,
+                    subtypes.size(), hierarchy.getAllSubtypesOf(type).size());
+            Set<JClass> concrete = subtypes.stream()
+                    .filter(c -> !c.isInterface() && !c.isAbstract())
+                    .collect(Collectors.toSet());
+            Assert.assertEquals("Concrete subtypes of " + type,
+                    concrete, Set.copyOf(hierarchy.getAllConcreteSubtypesOf(type)));
+            Assert.assertEquals("Size of concrete subtypes of " + type,
+                    concrete.size(), hierarchy.getAllConcreteSubtypesOf(type).size());
+            for (JClass other : types) {
+                Assert.assertEquals("Subtype " + other + " of " + type,
+                        subtypes.contains(other), hierarchy.isSubtype(type, other));
+                Assert.assertEquals("Concrete subtype " + other + " of " + type,
+                        concrete.contains(other),
+                        hierarchy.getAllConcreteSubtypesOf(type).contains(other));
+            }
+        }
+    }
+
+    private static void addSupertypes(JClass jclass, Set<JClass> types) {
+        if (types.add(jclass)) {
+            if (jclass.getSuperClass() != null) {
+                addSupertypes(jclass.getSuperClass(), types);
+            }
+            jclass.getInterfaces().forEach(i -> addSupertypes(i, types));
+        }
+    }
+
+    /**
+     * @return the subtypes of given class (including itself),
+     * computed by a breadth-first traversal.
+     */
+    private static Set<JClass> traverse(ClassHierarchy hierarchy, JClass jclass) {
+        Set<JClass> subtypes = Sets.newSet();
+        Deque<JClass> queue = new ArrayDeque<>();
+        subtypes.add(jclass);
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            Set<JClass> subs = Sets.newSet();
+            if (c.isInterface()) {
+                subs.addAll(hierarchy.getDirectImplementorsOf(c));
+                subs.addAll(hierarchy.getDirectSubinterfacesOf(c));
+            } else {
+                subs.addAll(hierarchy.getDirectSubclassesOf(c));
+            }
+            for (JClass sub : subs) {
+                if (subtypes.add(sub)) {
+                    queue.add(sub);
+                }
+            }
+        }
+        return subtypes;
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod");
+    }
+}
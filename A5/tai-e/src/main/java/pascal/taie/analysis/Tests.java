@@ -25,6 +25,7 @@ package pascal.taie.analysis;
 import pascal.taie.Main;
 import pascal.taie.analysis.misc.ClassDumper;
 
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -49,11 +50,24 @@ public final class Tests {
     private static final boolean DUMP_IR = true;
 
     public static void testCIPTA(String dir, String main, String... opts) {
-        doTestPTA("cipta", dir, main, opts);
+        doTestPTA("cipta", null, dir, main, opts);
     }
 
-    private static void doTestPTA(
-            String id, String dir, String main, String... opts) {
+    /**
+     * Starts pointer analysis for a specific test case, and compares the
+     * result with the expected file of given variant of the analysis, i.e.,
+     * "main-cipta-variant-expected.txt". The variants whose results are
+     * the same as the default ones share the default expected file.
+     *
+     * @param variant name of the variant, e.g., an option of the analysis
+     */
+    public static void testCIPTAVariant(String dir, String main,
+                                        String variant, String... opts) {
+        doTestPTA("cipta", variant, dir, main, opts);
+    }
+
+    private static void doTestPTA(String id, String variant,
+                                  String dir, String main, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         String classPath = "src/test/resources/pta/" + dir;
@@ -68,6 +82,13 @@ public final class Tests {
         String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
         ptaArgs.add("action:" + action);
         String file = getExpectedFile(classPath, main, id);
+        if (variant != null) {
+            String variantFile = getExpectedFile(
+                    classPath, main, id + "-" + variant);
+            if (Files.exists(Paths.get(variantFile))) {
+                file = variantFile;
+            }
+        }
         ptaArgs.add("file:" + file);
         boolean specifyOnlyApp = false;
         for (String opt : opts) {
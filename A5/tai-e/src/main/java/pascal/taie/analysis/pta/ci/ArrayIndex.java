@@ -23,6 +23,8 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.Type;
 
 /**
  * Represents array index pointers in PFG.
@@ -48,6 +50,17 @@ class ArrayIndex extends Pointer {
         return array;
     }
 
+    /**
+     * @return the element type of the array object, or null if
+     * the object is not an array, e.g., a non-array object that
+     * flows to an array variable imprecisely.
+     */
+    @Override
+    Type getType() {
+        return array.getType() instanceof ArrayType arrayType
+                ? arrayType.elementType() : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Numbering of abstract objects. Objects are numbered densely
+ * from 0 in the order they are first indexed, so that points-to sets
+ * can be represented as bit sets of object indexes.
+ * <p>
+ * Each analysis run owns its numbering, which is shared by all
+ * points-to sets of the run, so the results of earlier runs stay valid.
+ * Lookups are lock-free, and new objects are indexed under a lock,
+ * so the numbering can be used by multiple threads.
+ */
+final class ObjIndexer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<Obj, Integer> indexes = Maps.newConcurrentMap();
+
+    /**
+     * Indexed objects, of which the first {@link #size} elements are valid.
+     * An object is stored before its index is published via
+     * {@link #indexes}, thus any thread that has obtained an index
+     * can read the object.
+     */
+    private volatile Obj[] objs = new Obj[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * @return the index of given object. If the object has not been
+     * indexed, a new index is assigned to it.
+     */
+    int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : addObj(obj);
+    }
+
+    private synchronized int addObj(Obj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            Obj[] array = objs;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size << 1);
+            }
+            array[size] = obj;
+            objs = array;
+            index = size++;
+            indexes.put(obj, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    Obj getObj(int index) {
+        return objs[index];
+    }
+}
@@ -22,16 +22,132 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.language.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
+ * <p>
+ * Pointers in a cycle of the PFG always have the same points-to set,
+ * thus they can be collapsed into one representative pointer
+ * (via union-find), which holds the points-to set and the PFG edges
+ * of all of them.
  *
  * @see PointerFlowGraph
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    /**
+     * Dense id of this pointer, assigned by {@link PointerFlowGraph}.
+     */
+    private int id = -1;
+
+    /**
+     * Points-to set of this pointer, created by {@link PointerFlowGraph}.
+     */
+    private PointsToSet pointsToSet;
+
+    /**
+     * Parent in the union-find forest of collapsed pointers.
+     */
+    private Pointer parent = this;
+
+    /**
+     * Pointers collapsed into this pointer (including itself),
+     * or null if no pointer has been collapsed into it.
+     */
+    private List<Pointer> members;
+
+    /**
+     * Whether pointers of different types have been collapsed
+     * into this pointer.
+     */
+    private boolean mixedTypes;
+
+    /**
+     * @return the declared type of this pointer, or null if it is unknown.
+     */
+    abstract Type getType();
+
+    /**
+     * @return the type of the objects that can flow into this representative
+     * pointer, or null if any object can flow into it, i.e., its type is
+     * unknown or pointers of different types have been collapsed into it.
+     */
+    Type getFilterType() {
+        return mixedTypes ? null : getType();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 
     PointsToSet getPointsToSet() {
+        return getRepresentative().pointsToSet;
+    }
+
+    /**
+     * @return the representative of the pointers collapsed with this one,
+     * which is this pointer itself if it has not been collapsed.
+     */
+    Pointer getRepresentative() {
+        Pointer rep = this;
+        while (rep.parent != rep) {
+            rep = rep.parent;
+        }
+        // path compression
+        for (Pointer p = this; p.parent != rep; ) {
+            Pointer next = p.parent;
+            p.parent = rep;
+            p = next;
+        }
+        return rep;
+    }
+
+    /**
+     * Collapses this representative pointer into given representative.
+     * Points-to sets are not merged by this method, and the own points-to
+     * set of this pointer is discarded.
+     */
+    void collapseInto(Pointer rep) {
+        assert parent == this && rep.parent == rep && rep != this;
+        parent = rep;
+        pointsToSet = null;
+        Type type = getType();
+        if (mixedTypes || type == null || !type.equals(rep.getType())) {
+            rep.mixedTypes = true;
+        }
+        if (rep.members == null) {
+            rep.members = new ArrayList<>();
+            rep.members.add(rep);
+        }
+        rep.members.addAll(getMembers());
+        members = null;
+    }
+
+    /**
+     * @return the pointers collapsed into this representative pointer
+     * (including itself).
+     */
+    List<Pointer> getMembers() {
+        return members != null ? members : List.of(this);
+    }
+
+    /**
+     * @return the own points-to set of this pointer, regardless of
+     * its representative, or null if this pointer has been collapsed.
+     */
+    PointsToSet getOwnPointsToSet() {
         return pointsToSet;
     }
 }
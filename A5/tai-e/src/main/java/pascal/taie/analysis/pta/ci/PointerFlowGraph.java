@@ -25,77 +25,163 @@ package pascal.taie.analysis.pta.ci;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
-import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
+import pascal.taie.util.collection.SparseBitSet;
 
-import java.util.Collections;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * Pointers are numbered densely on creation. Var nodes are kept in
+ * per-method arrays indexed by {@link Var#getIndex()}, and instance field
+ * and array index nodes are kept in lists indexed by the indexes of their
+ * base objects (see {@link ObjIndexer}). The successors of each pointer are
+ * stored as a growable array of pointer ids; duplicate edges are detected
+ * by linear scan for small adjacency arrays, and by a bit set for large ones.
  */
 class PointerFlowGraph {
 
     /**
-     * Set of all pointer in this PFG.
+     * Adjacency arrays larger than this are deduplicated via bit sets.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private static final int SCAN_THRESHOLD = 16;
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * All pointers in this PFG, indexed by their ids.
+     */
+    private final List<Pointer> pointers = new ArrayList<>();
+
+    /**
+     * Map from each method to the Var nodes of its variables,
+     * indexed by variable indexes.
+     */
+    private final Map<JMethod, VarPtr[]> varPtrs = Maps.newMap();
 
     /**
-     * Map from Variable to Var node.
+     * The method and Var nodes of the last Var node lookup.
      */
-    private final Map<Var, VarPtr> varPtrs = Maps.newMap();
+    private JMethod lastMethod;
+
+    private VarPtr[] lastVarPtrs;
 
     /**
      * Map from JField to StaticField node.
      */
     private final Map<JField, StaticField> staticFields = Maps.newMap();
 
+    private final ObjIndexer objIndexer;
+
+    /**
+     * Object index -> map from JField to InstanceField node.
+     */
+    private final List<Map<JField, InstanceField>> instanceFields = new ArrayList<>();
+
+    /**
+     * Object index -> ArrayIndex node.
+     */
+    private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
     /**
-     * Map from (Obj, Field) to InstanceField node.
+     * Pointer id -> ids of successors, of which the first
+     * {@link #succCounts}[id] elements are valid.
      */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    private int[][] succs = new int[16][];
+
+    private int[] succCounts = new int[16];
 
     /**
-     * Map from Obj (array) to ArrayIndex node.
+     * Pointer id -> bit set of successor ids, for pointers with
+     * many successors.
      */
-    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
+    private SparseBitSet[] succSets = new SparseBitSet[16];
 
     /**
-     * Map from a pointer (node) to its successors in PFG.
+     * @param objIndexer numbering of the objects pointed by the pointers
+     *                   in this PFG, which also indexes the nodes of
+     *                   instance fields and array indexes.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    PointerFlowGraph(ObjIndexer objIndexer) {
+        this.objIndexer = objIndexer;
+    }
 
     /**
      * Returns all pointers in this PFG.
      */
     Set<Pointer> getPointers() {
-        return Collections.unmodifiableSet(pointers);
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Pointer p && p.getId() >= 0 &&
+                        p.getId() < pointers.size() && pointers.get(p.getId()) == p;
+            }
+
+            @Override
+            public Iterator<Pointer> iterator() {
+                return pointers.iterator();
+            }
+
+            @Override
+            public int size() {
+                return pointers.size();
+            }
+        };
+    }
+
+    private <P extends Pointer> P addPointer(P pointer) {
+        int id = pointers.size();
+        pointer.setId(id);
+        pointer.setPointsToSet(new PointsToSet(objIndexer));
+        pointers.add(pointer);
+        if (id == succs.length) {
+            int capacity = id << 1;
+            succs = Arrays.copyOf(succs, capacity);
+            succCounts = Arrays.copyOf(succCounts, capacity);
+            succSets = Arrays.copyOf(succSets, capacity);
+        }
+        succs[id] = EMPTY;
+        return pointer;
     }
 
     /**
      * @return the corresponding Var node for the given variable.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
-            VarPtr varPtr = new VarPtr(v);
-            pointers.add(varPtr);
-            return varPtr;
-        });
+        JMethod method = var.getMethod();
+        VarPtr[] ptrs;
+        if (method == lastMethod) {
+            ptrs = lastVarPtrs;
+        } else {
+            ptrs = varPtrs.computeIfAbsent(method,
+                    m -> new VarPtr[m.getIR().getVars().size()]);
+            lastMethod = method;
+            lastVarPtrs = ptrs;
+        }
+        VarPtr varPtr = ptrs[var.getIndex()];
+        if (varPtr == null) {
+            varPtr = addPointer(new VarPtr(var));
+            ptrs[var.getIndex()] = varPtr;
+        }
+        return varPtr;
     }
 
     /**
      * @return the corresponding StaticField node for the given static field.
      */
     StaticField getStaticField(JField field) {
-        return staticFields.computeIfAbsent(field, f -> {
-            StaticField staticField = new StaticField(f);
-            pointers.add(staticField);
-            return staticField;
-        });
+        return staticFields.computeIfAbsent(field,
+                f -> addPointer(new StaticField(f)));
     }
 
     /**
@@ -103,22 +189,33 @@ class PointerFlowGraph {
      * and instance field.
      */
     InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+        int index = objIndexer.getIndex(base);
+        while (instanceFields.size() <= index) {
+            instanceFields.add(null);
+        }
+        Map<JField, InstanceField> fields = instanceFields.get(index);
+        if (fields == null) {
+            fields = Maps.newSmallMap();
+            instanceFields.set(index, fields);
+        }
+        return fields.computeIfAbsent(field,
+                f -> addPointer(new InstanceField(base, f)));
     }
 
     /**
      * @return the corresponding ArrayIndex node for the given array object.
      */
     ArrayIndex getArrayIndex(Obj array) {
-        return arrayIndexes.computeIfAbsent(array, a -> {
-            ArrayIndex arrayIndex = new ArrayIndex(a);
-            pointers.add(arrayIndex);
-            return arrayIndex;
-        });
+        int index = objIndexer.getIndex(array);
+        while (arrayIndexes.size() <= index) {
+            arrayIndexes.add(null);
+        }
+        ArrayIndex arrayIndex = arrayIndexes.get(index);
+        if (arrayIndex == null) {
+            arrayIndex = addPointer(new ArrayIndex(array));
+            arrayIndexes.set(index, arrayIndex);
+        }
+        return arrayIndex;
     }
 
     /**
@@ -128,13 +225,109 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        source = source.getRepresentative();
+        target = target.getRepresentative();
+        return source != target && addSucc(source.getId(), target.getId());
+    }
+
+    private boolean addSucc(int source, int target) {
+        int count = succCounts[source];
+        int[] ids = succs[source];
+        SparseBitSet set = succSets[source];
+        if (set != null) {
+            if (!set.set(target)) {
+                return false;
+            }
+        } else {
+            for (int i = 0; i < count; ++i) {
+                if (ids[i] == target) {
+                    return false;
+                }
+            }
+            if (count == SCAN_THRESHOLD) {
+                set = new SparseBitSet();
+                for (int i = 0; i < count; ++i) {
+                    set.set(ids[i]);
+                }
+                set.set(target);
+                succSets[source] = set;
+            }
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, count + (count >> 1)));
+            succs[source] = ids;
+        }
+        ids[count] = target;
+        succCounts[source] = count + 1;
+        return true;
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of given pointer in the PFG. If the pointer has been
+     * collapsed, returns the successors of its representative, which may
+     * include collapsed pointers.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        int id = pointer.getRepresentative().getId();
+        return new SuccessorSet(succs[id], succCounts[id]);
+    }
+
+    /**
+     * Collapses given representative pointer into another representative,
+     * and moves its outgoing edges to the latter.
+     */
+    void collapse(Pointer pointer, Pointer rep) {
+        pointer.collapseInto(rep);
+        int id = pointer.getId();
+        int[] ids = succs[id];
+        int count = succCounts[id];
+        succs[id] = EMPTY;
+        succCounts[id] = 0;
+        succSets[id] = null;
+        for (int i = 0; i < count; ++i) {
+            addEdge(rep, pointers.get(ids[i]));
+        }
+    }
+
+    /**
+     * Read-only set view of the successors in an adjacency array.
+     * The view reflects the edges at the time it is created.
+     */
+    private class SuccessorSet extends AbstractSet<Pointer> {
+
+        private final int[] ids;
+
+        private final int count;
+
+        private SuccessorSet(int[] ids, int count) {
+            this.ids = ids;
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<Pointer> iterator() {
+            return new Iterator<>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Pointer next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return pointers.get(ids[next++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
     }
 }
@@ -23,33 +23,50 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.SparseBitSet;
 
-import java.util.Collections;
+import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
  * Represents of points-to sets.
+ * <p>
+ * Objects are stored as a sparse bit set of their indexes
+ * (see {@link ObjIndexer}), so that set union and difference,
+ * which dominate the cost of propagation, are performed word by word.
+ * Objects are iterated in the order of their indexes.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private final ObjIndexer indexer;
+
+    private final SparseBitSet set;
 
     /**
-     * Constructs an empty points-to set.
+     * Constructs an empty points-to set whose objects are numbered
+     * by given indexer.
      */
-    PointsToSet() {
+    PointsToSet(ObjIndexer indexer) {
+        this(indexer, new SparseBitSet());
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
-    PointsToSet(Obj obj) {
+    PointsToSet(ObjIndexer indexer, Obj obj) {
+        this(indexer);
         addObject(obj);
     }
 
+    private PointsToSet(ObjIndexer indexer, SparseBitSet set) {
+        this.indexer = indexer;
+        this.set = set;
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -57,14 +74,55 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        return set.set(indexer.getIndex(obj));
+    }
+
+    /**
+     * Adds all objects in given points-to set to this set.
+     *
+     * @return a new points-to set of the objects that are in given set
+     * but were not in this set before the call.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        assert indexer == pts.indexer;
+        return new PointsToSet(indexer, set.orDiff(pts.set));
+    }
+
+    /**
+     * @return the objects in this set that satisfy given predicate.
+     * If all objects satisfy it, this set itself is returned.
+     */
+    PointsToSet filter(Predicate<Obj> predicate) {
+        SparseBitSet result = new SparseBitSet();
+        set.forEach(i -> {
+            if (predicate.test(indexer.getObj(i))) {
+                result.set(i);
+            }
+        });
+        return result.cardinality() == set.cardinality() ?
+                this : new PointsToSet(indexer, result);
+    }
+
+    /**
+     * @return a new points-to set containing the objects in this set.
+     */
+    PointsToSet copy() {
+        return new PointsToSet(indexer, set.copy());
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        return set.get(indexer.getIndex(obj));
+    }
+
+    /**
+     * @return true if this points-to set contains all objects in given set.
+     */
+    boolean containsAll(PointsToSet pts) {
+        assert indexer == pts.indexer;
+        return set.containsAll(pts.set);
     }
 
     /**
@@ -78,30 +136,58 @@ class PointsToSet implements Iterable<Obj> {
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return set.cardinality();
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return set.stream().mapToObj(indexer::getObj);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return PointsToSet.this.size();
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        PrimitiveIterator.OfInt it = set.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Obj next() {
+                return indexer.getObj(it.nextInt());
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        return getObjects().toString();
     }
 }
@@ -29,6 +29,7 @@ import pascal.taie.analysis.graph.callgraph.*;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -37,10 +38,23 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
 
 import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 class Solver {
 
@@ -52,14 +66,91 @@ class Solver {
 
     private PointerFlowGraph pointerFlowGraph;
 
+    /**
+     * Numbering of the objects in the points-to sets of the current run.
+     */
+    private ObjIndexer objIndexer;
+
     private WorkList workList;
 
+    /**
+     * New reachable methods whose statements have not been processed.
+     */
+    private Deque<JMethod> reachableQueue;
+
     private StmtProcessor stmtProcessor;
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Whether to detect and collapse cycles in the PFG.
+     */
+    private final boolean collapseCycles;
+
+    /**
+     * Whether to perform offline variable substitution.
+     */
+    private final boolean substituteVars;
+
+    /**
+     * Number of threads for wave propagation; 1 means sequential solving.
+     */
+    private final int parallelism;
+
+    private ForkJoinPool pool;
+
+    /**
+     * Representative pointers whose points-to sets may contain objects
+     * that have not been propagated to their successors, used by
+     * wave propagation.
+     */
+    private Set<Pointer> dirtyPointers;
+
+    /**
+     * Pointer -> objects that have been propagated to its successors,
+     * used by wave propagation.
+     */
+    private Map<Pointer, PointsToSet> propagated;
+
+    /**
+     * Whether to filter out the objects that are incompatible with
+     * the types of the pointers they are propagated to.
+     */
+    private final boolean typeFilter;
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Pointer type -> object type -> whether the object type is
+     * a subtype of the pointer type.
+     */
+    private final Map<Type, Map<Type, Boolean>> subtypeCache =
+            Maps.newConcurrentMap();
+
+    /**
+     * (receiver type, call site) -> resolved callee.
+     */
+    private final TwoKeyMap<Type, Invoke, JMethod> dispatchCache =
+            Maps.newTwoKeyMap();
+
+    /**
+     * Order in which pointers are retrieved from the work list.
+     */
+    private final WorkList.Order workListOrder;
+
+    /**
+     * PFG edges that have been checked for cycles.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    Solver(HeapModel heapModel, AnalysisOptions options) {
         this.heapModel = heapModel;
+        this.workListOrder = WorkList.Order.of(options.getString("worklist-order"));
+        this.collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
+        this.substituteVars = options.getBooleanOrDefault("var-substitution", false);
+        this.typeFilter = options.getBooleanOrDefault("type-filter", false);
+        this.parallelism = options.getBooleanOrDefault("parallel", false) ?
+                Runtime.getRuntime().availableProcessors() : 1;
     }
 
     /**
@@ -67,18 +158,33 @@ class Solver {
      */
     void solve() {
         initialize();
-        analyze();
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism);
+            try {
+                analyzeInWaves();
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            analyze();
+        }
     }
 
     /**
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        objIndexer = new ObjIndexer();
+        pointerFlowGraph = new PointerFlowGraph(objIndexer);
+        workList = new WorkList(workListOrder, pointerFlowGraph::getSuccsOf);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
+        checkedEdges = Maps.newMultiMap();
+        reachableQueue = new ArrayDeque<>();
         hierarchy = World.get().getClassHierarchy();
+        typeSystem = World.get().getTypeSystem();
+        subtypeCache.clear();
+        dispatchCache.clear();
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -86,47 +192,47 @@ class Solver {
     }
 
     /**
-     * Processes new reachable method.
+     * Processes new reachable method. The method is queued, and its
+     * statements are processed by {@link #processReachableMethods()},
+     * so that deep call chains do not cause deep recursion.
      */
     private void addReachable(JMethod method) {
         // TODO - finish me
         if (callGraph.addReachableMethod(method)) {
-            // 处理 x = new T() in S_m
-            List<Stmt> stmts = method.getIR().getStmts();
-            for (Stmt stmt : stmts) {
-                if (stmt instanceof New new_stmt) {
-                    Obj obj = heapModel.getObj(new_stmt);
-                    VarPtr var_ptr = pointerFlowGraph.getVarPtr(new_stmt.getLValue());
-                    workList.addEntry(var_ptr, new PointsToSet(obj));
-                } else if (stmt instanceof Copy copy_stmt) {
-                    // x = y
-                    Var x = copy_stmt.getLValue();
-                    Var y = copy_stmt.getRValue();
-                    addPFGEdge(pointerFlowGraph.getVarPtr(y), pointerFlowGraph.getVarPtr(x));
-                } else if (stmt instanceof StoreField storeField && storeField.isStatic()) {
-                    // 处理 T.f = y
-                    JField jField = storeField.getFieldAccess().getFieldRef().resolve();
-                    Var y = storeField.getRValue();
-                    addPFGEdge(pointerFlowGraph.getVarPtr(y), pointerFlowGraph.getStaticField(jField));
-                } else if (stmt instanceof LoadField loadField && loadField.isStatic()) {
-                    // 处理 y = T.f
-                    JField jField = loadField.getFieldAccess().getFieldRef().resolve();
-                    Var y = loadField.getLValue();
-                    addPFGEdge(pointerFlowGraph.getStaticField(jField), pointerFlowGraph.getVarPtr(y));
-                } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
-                    // 处理静态方法调用 , x = T.m()
-                    JMethod m = resolveCallee(null, invoke);
-                    CallKind callkind = CallGraphs.getCallKind(invoke);
-                    assert callkind == CallKind.STATIC;
-                    if (callGraph.addEdge(new Edge<>(callkind, invoke, m))) {
-                        addReachable(m);
-                        processHelper(m, invoke);
-                    }
-                }
+            reachableQueue.add(method);
+        }
+    }
+
+    /**
+     * Processes the statements of queued reachable methods in batches,
+     * until no new reachable method is found.
+     */
+    private void processReachableMethods() {
+        while (!reachableQueue.isEmpty()) {
+            List<JMethod> batch = new ArrayList<>(reachableQueue);
+            reachableQueue.clear();
+            if (substituteVars) {
+                batch.forEach(this::substituteVars);
+            }
+            for (JMethod method : batch) {
+                method.getIR().forEach(stmt -> stmt.accept(stmtProcessor));
             }
         }
     }
 
+    /**
+     * Collapses the pointers of the variables in given method
+     * that are found equivalent by offline variable substitution.
+     */
+    private void substituteVars(JMethod method) {
+        VarSubstitution.compute(method.getIR()).forEach((var, repVar) -> {
+            Pointer p = pointerFlowGraph.getVarPtr(var).getRepresentative();
+            Pointer rep = pointerFlowGraph.getVarPtr(repVar).getRepresentative();
+            if (p != rep) {
+                collapse(List.of(rep, p), rep);
+            }
+        });
+    }
 
     /**
      * Processes statements in new reachable methods.
@@ -134,6 +240,58 @@ class Solver {
     private class StmtProcessor implements StmtVisitor<Void> {
         // TODO - if you choose to implement addReachable()
         //  via visitor pattern, then finish me
+
+        @Override
+        public Void visit(New stmt) {
+            // 处理 x = new T() in S_m
+            Obj obj = heapModel.getObj(stmt);
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()),
+                    new PointsToSet(objIndexer, obj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            // x = y
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                    pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                // 处理 T.f = y
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                        pointerFlowGraph.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                // 处理 y = T.f
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(pointerFlowGraph.getStaticField(field),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                // 处理静态方法调用 , x = T.m()
+                JMethod m = CallGraphs.resolveCallee(null, stmt);
+                if (callGraph.addEdge(new Edge<>(CallKind.STATIC, stmt, m))) {
+                    addReachable(m);
+                    processHelper(m, stmt);
+                }
+            }
+            return null;
+        }
     }
 
     /**
@@ -155,12 +313,28 @@ class Solver {
         // TODO - finish me
         // corresponding solve(m_entry) Part
         callGraph.entryMethods().forEach(this::addReachable);
+        processReachableMethods();
         while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
-            Pointer n = entry.pointer();
+            // pointers collapsed with n share its points-to set
+            Pointer n = entry.pointer().getRepresentative();
             PointsToSet pts = entry.pointsToSet();
             PointsToSet delta = propagate(n, pts);
-            if (n instanceof VarPtr n_ptr) {
+            processMembers(n.getMembers(), delta);
+            processReachableMethods();
+        }
+    }
+
+    /**
+     * Processes the statements on the variables of given pointers
+     * for the objects newly pointed by them.
+     */
+    private void processMembers(List<Pointer> members, PointsToSet delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (Pointer member : members) {
+            if (member instanceof VarPtr n_ptr) {
                 Var x = n_ptr.getVar();
                 for (Obj obj : delta) {
                     for (StoreField storeField : x.getStoreFields()) {
@@ -191,11 +365,176 @@ class Solver {
                         ArrayIndex arrayIndex = pointerFlowGraph.getArrayIndex(obj);
                         addPFGEdge(arrayIndex, pointerFlowGraph.getVarPtr(y));
                     }
-                    processCall(x, obj);
                 }
+                processCall(x, delta);
             }
+        }
+    }
+
+    /**
+     * Solves in waves. Each round consists of a sequential phase and
+     * a parallel phase:
+     * <ol>
+     *     <li>work-list entries are applied to the points-to sets without
+     *     propagation, and the statements on the variables are processed
+     *     for the new objects, which may add PFG edges and entries;</li>
+     *     <li>cycles reachable from the changed pointers are collapsed,
+     *     and the new objects are propagated along the resulting DAG in
+     *     topological order, level by level. The pointers of a level are
+     *     processed in parallel, and each pointer only pulls objects from
+     *     its predecessors of earlier levels and writes its own points-to
+     *     set, so no locking is required.</li>
+     * </ol>
+     * The objects that pointers receive in a wave are processed in the
+     * sequential phase of the next round.
+     */
+    private void analyzeInWaves() {
+        dirtyPointers = Sets.newSet();
+        propagated = Maps.newMap();
+        callGraph.entryMethods().forEach(this::addReachable);
+        processReachableMethods();
+        while (true) {
+            while (!workList.isEmpty()) {
+                WorkList.Entry entry = workList.pollEntry();
+                Pointer n = entry.pointer().getRepresentative();
+                PointsToSet delta = n.getPointsToSet()
+                        .addAllDiff(filter(n, entry.pointsToSet()));
+                if (!delta.isEmpty()) {
+                    dirtyPointers.add(n);
+                    processMembers(n.getMembers(), delta);
+                    processReachableMethods();
+                }
+            }
+            if (dirtyPointers.isEmpty()) {
+                break;
+            }
+            collapseCycles(List.copyOf(dirtyPointers), null);
+            propagateWave().forEach((n, delta) -> {
+                processMembers(n.getMembers(), delta);
+                processReachableMethods();
+            });
+        }
+    }
 
+    /**
+     * Propagates the new objects of dirty pointers along the PFG.
+     *
+     * @return map from each pointer to the objects it received in the wave.
+     */
+    private Map<Pointer, PointsToSet> propagateWave() {
+        // collect the sub-graph reachable from dirty pointers
+        List<Pointer> nodes = new ArrayList<>();
+        Map<Pointer, Integer> ids = Maps.newMap();
+        for (Pointer p : dirtyPointers) {
+            Pointer rep = p.getRepresentative();
+            if (!ids.containsKey(rep)) {
+                ids.put(rep, nodes.size());
+                nodes.add(rep);
+            }
+        }
+        dirtyPointers.clear();
+        List<List<Integer>> preds = new ArrayList<>();
+        List<List<Integer>> succs = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); ++i) {
+            preds.add(new ArrayList<>());
+            succs.add(new ArrayList<>());
+        }
+        for (int i = 0; i < nodes.size(); ++i) {
+            Pointer node = nodes.get(i);
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(node)) {
+                Pointer s = succ.getRepresentative();
+                if (s == node) {
+                    continue;
+                }
+                Integer j = ids.get(s);
+                if (j == null) {
+                    j = nodes.size();
+                    ids.put(s, j);
+                    nodes.add(s);
+                    preds.add(new ArrayList<>());
+                    succs.add(new ArrayList<>());
+                }
+                preds.get(j).add(i);
+                succs.get(i).add(j);
+            }
+        }
+        // group the nodes by topological levels (Kahn's algorithm)
+        int[] inDegrees = new int[nodes.size()];
+        for (int j = 0; j < nodes.size(); ++j) {
+            inDegrees[j] = preds.get(j).size();
+        }
+        List<List<Integer>> levels = new ArrayList<>();
+        List<Integer> level = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (inDegrees[i] == 0) {
+                level.add(i);
+            }
+        }
+        int leveled = 0;
+        while (!level.isEmpty()) {
+            levels.add(level);
+            leveled += level.size();
+            List<Integer> next = new ArrayList<>();
+            for (int i : level) {
+                for (int j : succs.get(i)) {
+                    if (--inDegrees[j] == 0) {
+                        next.add(j);
+                    }
+                }
+            }
+            level = next;
+        }
+        // cycles created after collapsing are left to the next round.
+        // Their leveled predecessors are held back, i.e., they are dirty
+        // again and do not record what they send in this wave, so that
+        // the next wave propagates their objects to the cycles
+        boolean[] held = new boolean[nodes.size()];
+        if (leveled < nodes.size()) {
+            for (int i = 0; i < nodes.size(); ++i) {
+                if (inDegrees[i] > 0) {
+                    dirtyPointers.add(nodes.get(i));
+                    for (int pred : preds.get(i)) {
+                        if (inDegrees[pred] == 0) {
+                            held[pred] = true;
+                            dirtyPointers.add(nodes.get(pred));
+                        }
+                    }
+                }
+            }
         }
+        // propagate level by level
+        PointsToSet[] deltas = new PointsToSet[nodes.size()];
+        PointsToSet[] received = new PointsToSet[nodes.size()];
+        PointsToSet[] sent = new PointsToSet[nodes.size()];
+        for (int i = 0; i < nodes.size(); ++i) {
+            sent[i] = propagated.computeIfAbsent(nodes.get(i), p -> new PointsToSet(objIndexer));
+        }
+        for (List<Integer> lv : levels) {
+            pool.submit(() -> lv.parallelStream().forEach(i -> {
+                PointsToSet pts = nodes.get(i).getOwnPointsToSet();
+                for (int pred : preds.get(i)) {
+                    PointsToSet d = deltas[pred];
+                    if (d != null && !d.isEmpty()) {
+                        PointsToSet diff = pts.addAllDiff(filter(nodes.get(i), d));
+                        if (!diff.isEmpty()) {
+                            if (received[i] == null) {
+                                received[i] = diff;
+                            } else {
+                                received[i].addAllDiff(diff);
+                            }
+                        }
+                    }
+                }
+                deltas[i] = (held[i] ? sent[i].copy() : sent[i]).addAllDiff(pts);
+            })).join();
+        }
+        Map<Pointer, PointsToSet> result = Maps.newMap();
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (received[i] != null) {
+                result.put(nodes.get(i), received[i]);
+            }
+        }
+        return result;
     }
 
     /**
@@ -204,42 +543,243 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        PointsToSet delta = new PointsToSet();
-        PointsToSet pointer_set = pointer.getPointsToSet();
-        for (Obj obj : pointsToSet) {
-            if (pointer_set.contains(obj)) continue;
-            pointer_set.addObject(obj);
-            delta.addObject(obj);
-        }
+        PointsToSet delta = pointer.getPointsToSet()
+                .addAllDiff(filter(pointer, pointsToSet));
         if (!delta.isEmpty()) {
-            for (Pointer s : pointerFlowGraph.getSuccsOf(pointer)) {
-                workList.addEntry(s, delta);
+            if (collapseCycles) {
+                propagateAndCheckCycles(pointer, delta);
+            } else {
+                for (Pointer s : pointerFlowGraph.getSuccsOf(pointer)) {
+                    workList.addEntry(s, delta);
+                }
             }
         }
         return delta;
     }
 
     /**
-     * Processes instance calls when points-to set of the receiver variable changes.
+     * @return the objects in given points-to set that can flow into
+     * given representative pointer according to its type.
+     */
+    private PointsToSet filter(Pointer pointer, PointsToSet pointsToSet) {
+        Type type = typeFilter ? pointer.getFilterType() : null;
+        if (type == null || pointsToSet.isEmpty()) {
+            return pointsToSet;
+        }
+        Map<Type, Boolean> subtypes = subtypeCache.computeIfAbsent(
+                type, t -> Maps.newConcurrentMap());
+        return pointsToSet.filter(obj -> {
+            Boolean isSubtype = subtypes.get(obj.getType());
+            if (isSubtype == null) {
+                // type system may not be thread-safe
+                synchronized (subtypeCache) {
+                    isSubtype = typeSystem.isSubtype(type, obj.getType());
+                }
+                subtypes.put(obj.getType(), isSubtype);
+            }
+            return isSubtype;
+        });
+    }
+
+    /**
+     * Propagates delta to the PFG successors of given representative pointer.
+     * When propagation along an edge (pointer -> s) yields no new objects
+     * and pt(s) is equal to pt(pointer), the edge is likely to be in a cycle,
+     * then cycle detection is performed from s (lazy cycle detection).
+     * Each edge is checked at most once.
+     */
+    private void propagateAndCheckCycles(Pointer pointer, PointsToSet delta) {
+        PointsToSet pts = pointer.getPointsToSet();
+        List<Pointer> candidates = new ArrayList<>();
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            Pointer s = succ.getRepresentative();
+            if (s == pointer) {
+                continue;
+            }
+            PointsToSet sPts = s.getPointsToSet();
+            if (!sPts.containsAll(delta)) {
+                workList.addEntry(s, delta);
+            } else if (sPts.size() == pts.size() &&
+                    checkedEdges.put(pointer, s)) {
+                candidates.add(s);
+            }
+        }
+        for (Pointer s : candidates) {
+            if (pointer.getRepresentative() == pointer &&
+                    s.getRepresentative() == s) {
+                collapseCycles(s, pointer);
+            }
+        }
+    }
+
+    /**
+     * Finds the strongly connected components reachable from given pointer
+     * in the PFG (via Tarjan's algorithm), and collapses the non-trivial ones.
      *
-     * @param var  the variable that holds receiver objects
-     * @param recv a new discovered object pointed by the variable.
+     * @param start     the representative pointer to start the search
+     * @param preferred the representative pointer preferred to represent
+     *                  its component
      */
-    private void processCall(Var var, Obj recv) {
-        // TODO - finish me
-        for (Invoke invoke : var.getInvokes()) {
-            JMethod m = resolveCallee(recv, invoke);
-            if (m.getIR().getThis() != null) {
-                workList.addEntry(pointerFlowGraph.getVarPtr(m.getIR().getThis()), new PointsToSet(recv));
+    private void collapseCycles(Pointer start, Pointer preferred) {
+        collapseCycles(List.of(start), preferred);
+    }
+
+    /**
+     * Finds the strongly connected components reachable from given pointers
+     * in the PFG, and collapses the non-trivial ones.
+     *
+     * @param preferred the representative pointer preferred to represent
+     *                  its component, or null if there is no preference
+     */
+    private void collapseCycles(Collection<Pointer> starts, Pointer preferred) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lowLinks = Maps.newMap();
+        Deque<Pointer> sccStack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> callStack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iterators = new ArrayDeque<>();
+        for (Pointer root : starts) {
+            Pointer start = root.getRepresentative();
+            if (indexes.containsKey(start)) {
+                continue;
+            }
+            int startIndex = indexes.size();
+            indexes.put(start, startIndex);
+            lowLinks.put(start, startIndex);
+            sccStack.push(start);
+            onStack.add(start);
+            callStack.push(start);
+            iterators.push(List.copyOf(pointerFlowGraph.getSuccsOf(start)).iterator());
+            runTarjan(indexes, lowLinks, sccStack, onStack,
+                    callStack, iterators, preferred);
+        }
+    }
+
+    private void runTarjan(Map<Pointer, Integer> indexes,
+                           Map<Pointer, Integer> lowLinks,
+                           Deque<Pointer> sccStack, Set<Pointer> onStack,
+                           Deque<Pointer> callStack,
+                           Deque<Iterator<Pointer>> iterators,
+                           Pointer preferred) {
+        while (!callStack.isEmpty()) {
+            Pointer node = callStack.peek();
+            Iterator<Pointer> it = iterators.peek();
+            if (it.hasNext()) {
+                Pointer succ = it.next().getRepresentative();
+                if (succ == node) {
+                    continue;
+                }
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lowLinks.put(succ, index);
+                    sccStack.push(succ);
+                    onStack.add(succ);
+                    callStack.push(succ);
+                    iterators.push(List.copyOf(
+                            pointerFlowGraph.getSuccsOf(succ)).iterator());
+                } else if (onStack.contains(succ)) {
+                    lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(succ)));
+                }
+            } else {
+                callStack.pop();
+                iterators.pop();
+                if (!callStack.isEmpty()) {
+                    Pointer parent = callStack.peek();
+                    lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(node)));
+                }
+                if (lowLinks.get(node).equals(indexes.get(node))) {
+                    List<Pointer> scc = new ArrayList<>();
+                    Pointer p;
+                    do {
+                        p = sccStack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (scc.size() > 1) {
+                        collapse(scc, preferred != null && scc.contains(preferred)
+                                ? preferred : node);
+                    }
+                }
             }
-            CallKind callKind = CallGraphs.getCallKind(invoke);
-            if (callGraph.addEdge(new Edge<>(callKind, invoke, m))) {
-                addReachable(m);
-                processHelper(m, invoke);
+        }
+    }
+
+    /**
+     * Collapses given representative pointers into rep, and propagates
+     * the merged points-to set.
+     */
+    private void collapse(List<Pointer> scc, Pointer rep) {
+        for (Pointer p : scc) {
+            if (p != rep) {
+                PointsToSet repPts = rep.getOwnPointsToSet();
+                PointsToSet pPts = p.getOwnPointsToSet();
+                // objects that are new to the members of rep and p, respectively
+                PointsToSet toRep = repPts.addAllDiff(pPts);
+                PointsToSet toP = pPts.addAllDiff(repPts);
+                List<Pointer> repMembers = List.copyOf(rep.getMembers());
+                List<Pointer> pMembers = p.getMembers();
+                pointerFlowGraph.collapse(p, rep);
+                processMembers(repMembers, toRep);
+                processMembers(pMembers, toP);
+            }
+        }
+        if (dirtyPointers != null) {
+            // pt(rep) may contain objects that have not been propagated
+            dirtyPointers.add(rep);
+        }
+        PointsToSet pts = rep.getPointsToSet();
+        if (!pts.isEmpty()) {
+            for (Pointer succ : List.copyOf(pointerFlowGraph.getSuccsOf(rep))) {
+                workList.addEntry(succ, pts);
             }
         }
     }
 
+    /**
+     * Processes instance calls when points-to set of the receiver variable changes.
+     * The objects are grouped by their types, so that each call site is
+     * resolved once per type, and the objects dispatched to the same callee
+     * are passed to its this variable as one set.
+     *
+     * @param var   the variable that holds receiver objects
+     * @param recvs the new discovered objects pointed by the variable.
+     */
+    private void processCall(Var var, PointsToSet recvs) {
+        List<Invoke> invokes = var.getInvokes();
+        if (invokes.isEmpty()) {
+            return;
+        }
+        Map<Type, PointsToSet> recvsByType = Maps.newSmallMap();
+        for (Obj recv : recvs) {
+            recvsByType.computeIfAbsent(recv.getType(), t -> new PointsToSet(objIndexer))
+                    .addObject(recv);
+        }
+        for (Invoke invoke : invokes) {
+            Map<JMethod, PointsToSet> recvsByCallee = Maps.newSmallMap();
+            recvsByType.forEach((type, objs) -> {
+                JMethod m = dispatch(type, invoke);
+                if (m != null) {
+                    recvsByCallee.merge(m, objs, (s1, s2) -> {
+                        PointsToSet merged = s1.copy();
+                        merged.addAllDiff(s2);
+                        return merged;
+                    });
+                }
+            });
+            recvsByCallee.forEach((m, objs) -> {
+                if (m.getIR().getThis() != null) {
+                    workList.addEntry(pointerFlowGraph.getVarPtr(m.getIR().getThis()), objs);
+                }
+                CallKind callKind = CallGraphs.getCallKind(invoke);
+                if (callGraph.addEdge(new Edge<>(callKind, invoke, m))) {
+                    addReachable(m);
+                    processHelper(m, invoke);
+                }
+            });
+        }
+    }
+
     private void processHelper(JMethod m, Invoke invoke) {
         // invoke -> m
         List<Var> args = invoke.getInvokeExp().getArgs();
@@ -260,16 +800,12 @@ class Solver {
 
 
     /**
-     * Resolves the callee of a call site with the receiver object.
-     *
-     * @param recv     the receiver object of the method call. If the callSite
-     *                 is static, this parameter is ignored (i.e., can be null).
-     * @param callSite the call site to be resolved.
-     * @return the resolved callee.
+     * Resolves the callee of given call site for the receiver objects
+     * of given type. The results are memoized in {@link #dispatchCache}.
      */
-    private JMethod resolveCallee(Obj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+    private JMethod dispatch(Type type, Invoke callSite) {
+        return dispatchCache.computeIfAbsent(type, callSite,
+                CallGraphs::resolveCallee);
     }
 
     CIPTAResult getResult() {
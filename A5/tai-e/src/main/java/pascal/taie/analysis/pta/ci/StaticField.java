@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.language.classes.JField;
+import pascal.taie.language.type.Type;
 
 /**
  * Represents static field pointers in PFG.
@@ -42,6 +43,11 @@ class StaticField extends Pointer {
         return field;
     }
 
+    @Override
+    Type getType() {
+        return field.getType();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Offline variable substitution for pointer analysis.
+ * <p>
+ * Before the statements of a reachable method are processed, this pass
+ * detects the variables whose points-to sets are provably equal to those
+ * of other variables, by a simplified hash-based value numbering over
+ * the IR of the method: a variable that is neither a parameter nor
+ * {@code this}, and is only defined by a copy {@code x = y}, receives
+ * the value number of {@code y}. The pointers of the variables with the
+ * same value number can then be represented by a single pointer.
+ */
+final class VarSubstitution {
+
+    private VarSubstitution() {
+    }
+
+    /**
+     * @return the map from each substitutable variable in given IR
+     * to the representative variable of its equivalence class.
+     */
+    static Map<Var, Var> compute(IR ir) {
+        Map<Var, Integer> defCounts = Maps.newMap();
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    defCounts.merge(var, 1, Integer::sum);
+                }
+            });
+        }
+        // union-find over variables, represented by parent links
+        Map<Var, Var> parents = Maps.newMap();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                Var x = copy.getLValue();
+                Var y = copy.getRValue();
+                if (defCounts.get(x) == 1 && !ir.getParams().contains(x) &&
+                        x != ir.getThis()) {
+                    Var rx = find(parents, x);
+                    Var ry = find(parents, y);
+                    if (rx != ry) {
+                        parents.put(rx, ry);
+                    }
+                }
+            }
+        }
+        Map<Var, Var> reps = Maps.newMap();
+        parents.keySet().forEach(v -> reps.put(v, find(parents, v)));
+        return reps;
+    }
+
+    private static Var find(Map<Var, Var> parents, Var v) {
+        Var rep = v;
+        for (Var p; (p = parents.get(rep)) != null; ) {
+            rep = p;
+        }
+        for (Var p; (p = parents.get(v)) != null && p != rep; ) {
+            parents.put(v, rep);
+            v = p;
+        }
+        return rep;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sparse bit set of non-negative integers.
+ * <p>
+ * Only the non-zero 64-bit words are stored, in two parallel arrays sorted
+ * by word indexes, so the memory usage is proportional to the number of
+ * non-zero words instead of the largest element. Bulk operations merge
+ * the word arrays of two sets in a single linear pass, and iteration
+ * visits elements in ascending order.
+ */
+public class SparseBitSet {
+
+    private static final int ADDRESS_BITS = 6;
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private static final int[] EMPTY_INDEXES = new int[0];
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * Indexes of non-zero words, in ascending order.
+     */
+    private int[] indexes;
+
+    /**
+     * Non-zero words, parallel to {@link #indexes}.
+     */
+    private long[] words;
+
+    /**
+     * Number of non-zero words.
+     */
+    private int nWords;
+
+    /**
+     * Number of set bits.
+     */
+    private int cardinality;
+
+    public SparseBitSet() {
+        indexes = new int[INITIAL_CAPACITY];
+        words = new long[INITIAL_CAPACITY];
+    }
+
+    private SparseBitSet(int[] indexes, long[] words, int nWords, int cardinality) {
+        this.indexes = indexes;
+        this.words = words;
+        this.nWords = nWords;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * @return the position of the word of given index in {@link #indexes},
+     * or {@code -(insertion point) - 1} if the word is absent.
+     */
+    private int findWord(int wordIndex) {
+        return Arrays.binarySearch(indexes, 0, nWords, wordIndex);
+    }
+
+    /**
+     * Sets the bit of given element.
+     *
+     * @return true if the bit was not set before the call.
+     */
+    public boolean set(int e) {
+        int wordIndex = e >>> ADDRESS_BITS;
+        long mask = 1L << e;
+        int pos = findWord(wordIndex);
+        if (pos >= 0) {
+            if ((words[pos] & mask) != 0) {
+                return false;
+            }
+            words[pos] |= mask;
+        } else {
+            pos = -pos - 1;
+            if (nWords == indexes.length) {
+                int capacity = nWords + (nWords >> 1) + 1;
+                indexes = Arrays.copyOf(indexes, capacity);
+                words = Arrays.copyOf(words, capacity);
+            }
+            System.arraycopy(indexes, pos, indexes, pos + 1, nWords - pos);
+            System.arraycopy(words, pos, words, pos + 1, nWords - pos);
+            indexes[pos] = wordIndex;
+            words[pos] = mask;
+            ++nWords;
+        }
+        ++cardinality;
+        return true;
+    }
+
+    /**
+     * @return a new set containing the elements of this set.
+     */
+    public SparseBitSet copy() {
+        return new SparseBitSet(Arrays.copyOf(indexes, Math.max(nWords, 1)),
+                Arrays.copyOf(words, Math.max(nWords, 1)), nWords, cardinality);
+    }
+
+    /**
+     * @return true if the bit of given element is set.
+     */
+    public boolean get(int e) {
+        int pos = findWord(e >>> ADDRESS_BITS);
+        return pos >= 0 && (words[pos] & (1L << e)) != 0;
+    }
+
+    /**
+     * @return true if this set contains all elements in other set.
+     */
+    public boolean containsAll(SparseBitSet other) {
+        if (other.cardinality > cardinality) {
+            return false;
+        }
+        int i = 0;
+        for (int j = 0; j < other.nWords; ++j) {
+            while (i < nWords && indexes[i] < other.indexes[j]) {
+                ++i;
+            }
+            if (i == nWords || indexes[i] != other.indexes[j] ||
+                    (other.words[j] & ~words[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the bits of all elements in other set, i.e., this |= other.
+     * <p>
+     * The words are first compared without allocation, so nothing is
+     * allocated (except the empty result) when other set is a subset of
+     * this set, and the words of this set are updated in place when
+     * other set has no words absent in this set.
+     *
+     * @return a new set of the elements that are in other set
+     * but were not in this set before the call.
+     */
+    public SparseBitSet orDiff(SparseBitSet other) {
+        // count the words of the difference, and the words that are
+        // absent in this set
+        int nDiff = 0, nAbsent = 0;
+        for (int i = 0, j = 0; j < other.nWords; ++j) {
+            while (i < nWords && indexes[i] < other.indexes[j]) {
+                ++i;
+            }
+            if (i < nWords && indexes[i] == other.indexes[j]) {
+                if ((other.words[j] & ~words[i]) != 0) {
+                    ++nDiff;
+                }
+            } else {
+                ++nDiff;
+                ++nAbsent;
+            }
+        }
+        if (nDiff == 0) {
+            return new SparseBitSet(EMPTY_INDEXES, EMPTY_WORDS, 0, 0);
+        }
+        int[] diffIndexes = new int[nDiff];
+        long[] diffWords = new long[nDiff];
+        int[] newIndexes = nAbsent == 0 ? indexes : new int[nWords + nAbsent];
+        long[] newWords = nAbsent == 0 ? words : new long[nWords + nAbsent];
+        int n = 0, d = 0, diffCardinality = 0;
+        int i = 0, j = 0;
+        while (i < nWords || j < other.nWords) {
+            if (j == other.nWords ||
+                    (i < nWords && indexes[i] < other.indexes[j])) {
+                newIndexes[n] = indexes[i];
+                newWords[n++] = words[i++];
+            } else {
+                long word = other.words[j];
+                if (i < nWords && indexes[i] == other.indexes[j]) {
+                    word &= ~words[i];
+                    newWords[n] = words[i++] | other.words[j];
+                } else {
+                    newWords[n] = word;
+                }
+                newIndexes[n++] = other.indexes[j];
+                if (word != 0) {
+                    diffIndexes[d] = other.indexes[j];
+                    diffWords[d++] = word;
+                    diffCardinality += Long.bitCount(word);
+                }
+                ++j;
+            }
+        }
+        indexes = newIndexes;
+        words = newWords;
+        nWords = n;
+        cardinality += diffCardinality;
+        return new SparseBitSet(diffIndexes, diffWords, nDiff, diffCardinality);
+    }
+
+    /**
+     * Sets the bits of all elements in other set, i.e., this |= other.
+     *
+     * @return true if this set changed as a result of the call.
+     */
+    public boolean or(SparseBitSet other) {
+        return !orDiff(other).isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @return the number of set bits.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Performs given action for each element in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < nWords; ++i) {
+            int base = indexes[i] << ADDRESS_BITS;
+            long word = words[i];
+            while (word != 0) {
+                action.accept(base + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the elements in ascending order.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int pos = 0;
+
+            private long word = nWords > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0 && pos + 1 < nWords) {
+                    word = words[++pos];
+                }
+                return word != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int e = (indexes[pos] << ADDRESS_BITS) +
+                        Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return e;
+            }
+        };
+    }
+
+    /**
+     * @return a stream of the elements in ascending order.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(),
+                cardinality, Spliterator.ORDERED | Spliterator.SORTED |
+                        Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(e -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(e);
+        });
+        return sb.append('}').toString();
+    }
+}
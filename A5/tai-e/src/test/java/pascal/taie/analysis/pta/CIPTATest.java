@@ -23,59 +23,98 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 
+import java.util.List;
+
+/**
+ * Runs the test cases with the default options and with each optional
+ * solving technique enabled. The techniques do not change the results,
+ * thus the runs share the default expected files, except for type
+ * filtering, which removes the objects of incompatible types, e.g.,
+ * the object stored into an array of another type in {@code Array},
+ * and compares with "main-cipta-type-filter-expected.txt" if it exists.
+ */
+@RunWith(Parameterized.class)
 public class CIPTATest {
 
     static final String DIR = "cipta";
 
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> options() {
+        return List.of(new Object[]{"default"},
+                new Object[]{"collapse-cycles:true"},
+                new Object[]{"var-substitution:true"},
+                new Object[]{"worklist-order:lrf"},
+                new Object[]{"worklist-order:topo"},
+                new Object[]{"type-filter:true"},
+                new Object[]{"parallel:true"});
+    }
+
+    /**
+     * Options given to the analysis, or "default" for no options.
+     */
+    @Parameterized.Parameter
+    public String options;
+
+    private void test(String main) {
+        if (options.equals("default")) {
+            Tests.testCIPTA(DIR, main);
+        } else {
+            String variant = options.substring(0, options.indexOf(':'));
+            Tests.testCIPTAVariant(DIR, main, variant, options);
+        }
+    }
+
     @Test
     public void testExample() {
-        Tests.testCIPTA(DIR, "Example");
+        test("Example");
     }
 
     @Test
     public void testArray() {
-        Tests.testCIPTA(DIR, "Array");
+        test("Array");
     }
 
     @Test
     public void testAssign() {
-        Tests.testCIPTA(DIR, "Assign");
+        test("Assign");
     }
 
     @Test
     public void testAssign2() {
-        Tests.testCIPTA(DIR, "Assign2");
+        test("Assign2");
     }
 
     @Test
     public void testStoreLoad() {
-        Tests.testCIPTA(DIR, "StoreLoad");
+        test("StoreLoad");
     }
 
     @Test
     public void testCall() {
-        Tests.testCIPTA(DIR, "Call");
+        test("Call");
     }
 
     @Test
     public void testInstanceField() {
-        Tests.testCIPTA(DIR, "InstanceField");
+        test("InstanceField");
     }
 
     @Test
     public void testStaticField() {
-        Tests.testCIPTA(DIR, "StaticField");
+        test("StaticField");
     }
 
     @Test
     public void testStaticCall() {
-        Tests.testCIPTA(DIR, "StaticCall");
+        test("StaticCall");
     }
 
     @Test
     public void testMergeParam() {
-        Tests.testCIPTA(DIR, "MergeParam");
+        test("MergeParam");
     }
 }
@@ -0,0 +1,343 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compressed sparse row (CSR) storage of the edges of a call graph.
+ * <p>
+ * Methods and call sites are numbered, and call sites are numbered
+ * consecutively per containing method. Edges are numbered in the order
+ * of their call sites, so the edges of each call site occupy a contiguous
+ * range of edge numbers, sorted by the numbers of callees. For each edge,
+ * only the numbers of its call site and callee, and its kind are kept.
+ * Besides, the edges to each callee are indexed by another CSR array.
+ * {@link Edge} objects are only created when they are queried.
+ * <p>
+ * As all ranges are sorted by the numbers of their elements, the sets
+ * returned by the queries check membership via binary search.
+ * <p>
+ * The storage is immutable, and is built by {@link AbstractCallGraph#freeze()}.
+ *
+ * @param <CallSite> type of call sites
+ * @param <Method>   type of methods
+ */
+public class CallGraphCSR<CallSite, Method> {
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private final List<Method> methods = new ArrayList<>();
+
+    private final Map<Method, Integer> methodIds = Maps.newMap();
+
+    private final List<CallSite> callSites = new ArrayList<>();
+
+    private final Map<CallSite, Integer> callSiteIds = Maps.newMap();
+
+    /**
+     * Call site id -> id of containing method.
+     */
+    private final int[] containers;
+
+    /**
+     * Method id -> range of ids of the call sites in the method.
+     */
+    private final int[] callSiteOffsets;
+
+    /**
+     * Call site id -> range of ids of the edges out of the call site.
+     */
+    private final int[] edgeOffsets;
+
+    /**
+     * Edge id -> id of call site.
+     */
+    private final int[] edgeCallSites;
+
+    /**
+     * Edge id -> id of callee.
+     */
+    private final int[] edgeCallees;
+
+    /**
+     * Edge id -> ordinal of call kind.
+     */
+    private final byte[] edgeKinds;
+
+    /**
+     * Method id -> range of indexes in {@link #calleeEdges}.
+     */
+    private final int[] calleeOffsets;
+
+    /**
+     * Ids of the edges to each callee, grouped by callees.
+     */
+    private final int[] calleeEdges;
+
+    CallGraphCSR(CallGraph<CallSite, Method> callGraph) {
+        // number methods and call sites
+        callGraph.reachableMethods().forEach(this::getOrAddMethodId);
+        int nReachable = methods.size();
+        List<Integer> containerList = new ArrayList<>();
+        int[] csOffsets = new int[nReachable + 1];
+        for (int m = 0; m < nReachable; ++m) {
+            csOffsets[m] = callSites.size();
+            for (CallSite callSite : callGraph.getCallSitesIn(methods.get(m))) {
+                if (!callSiteIds.containsKey(callSite)) {
+                    callSiteIds.put(callSite, callSites.size());
+                    callSites.add(callSite);
+                    containerList.add(m);
+                }
+            }
+        }
+        csOffsets[nReachable] = callSites.size();
+        callSiteOffsets = csOffsets;
+        containers = containerList.stream().mapToInt(Integer::intValue).toArray();
+        // collect edges in the order of call sites
+        int nCallSites = callSites.size();
+        edgeOffsets = new int[nCallSites + 1];
+        List<Edge<CallSite, Method>> edges = new ArrayList<>();
+        for (int cs = 0; cs < nCallSites; ++cs) {
+            int from = edges.size();
+            edgeOffsets[cs] = from;
+            callGraph.edgesOutOf(callSites.get(cs)).forEach(edges::add);
+            List<Edge<CallSite, Method>> csEdges = edges.subList(from, edges.size());
+            csEdges.forEach(edge -> getOrAddMethodId(edge.getCallee()));
+            csEdges.sort(Comparator.comparingInt(edge -> methodIds.get(edge.getCallee())));
+        }
+        edgeOffsets[nCallSites] = edges.size();
+        int nEdges = edges.size();
+        edgeCallSites = new int[nEdges];
+        edgeCallees = new int[nEdges];
+        edgeKinds = new byte[nEdges];
+        for (int e = 0; e < nEdges; ++e) {
+            Edge<CallSite, Method> edge = edges.get(e);
+            edgeCallSites[e] = callSiteIds.get(edge.getCallSite());
+            edgeCallees[e] = getOrAddMethodId(edge.getCallee());
+            edgeKinds[e] = (byte) edge.getKind().ordinal();
+        }
+        // index edges by callees (counting sort)
+        int nMethods = methods.size();
+        calleeOffsets = new int[nMethods + 1];
+        for (int e = 0; e < nEdges; ++e) {
+            ++calleeOffsets[edgeCallees[e] + 1];
+        }
+        for (int m = 0; m < nMethods; ++m) {
+            calleeOffsets[m + 1] += calleeOffsets[m];
+        }
+        calleeEdges = new int[nEdges];
+        int[] next = new int[nMethods];
+        for (int e = 0; e < nEdges; ++e) {
+            int callee = edgeCallees[e];
+            calleeEdges[calleeOffsets[callee] + next[callee]++] = e;
+        }
+    }
+
+    private int getOrAddMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = methods.size();
+            methodIds.put(method, id);
+            methods.add(method);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of given object if it is a method in this storage,
+     * otherwise -1.
+     */
+    private int getMethodId(Object o) {
+        Integer id = methodIds.get(o);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the id of given object if it is a call site in this storage,
+     * otherwise -1.
+     */
+    private int getCallSiteId(Object o) {
+        Integer id = callSiteIds.get(o);
+        return id != null ? id : -1;
+    }
+
+    Set<CallSite> getCallersOf(Method callee) {
+        Integer m = methodIds.get(callee);
+        if (m == null) {
+            return Set.of();
+        }
+        // the edges to a callee are in the order of their call sites
+        return new RangeSet<>(calleeOffsets[m], calleeOffsets[m + 1],
+                i -> callSites.get(edgeCallSites[calleeEdges[i]]),
+                i -> edgeCallSites[calleeEdges[i]], this::getCallSiteId);
+    }
+
+    Set<Method> getCalleesOf(CallSite callSite) {
+        Integer cs = callSiteIds.get(callSite);
+        if (cs == null) {
+            return Set.of();
+        }
+        return new RangeSet<>(edgeOffsets[cs], edgeOffsets[cs + 1],
+                e -> methods.get(edgeCallees[e]),
+                e -> edgeCallees[e], this::getMethodId);
+    }
+
+    Method getContainerOf(CallSite callSite) {
+        Integer cs = callSiteIds.get(callSite);
+        return cs != null ? methods.get(containers[cs]) : null;
+    }
+
+    Set<CallSite> getCallSitesIn(Method method) {
+        Integer m = methodIds.get(method);
+        if (m == null || m + 1 >= callSiteOffsets.length) {
+            return Set.of();
+        }
+        return new RangeSet<>(callSiteOffsets[m], callSiteOffsets[m + 1],
+                callSites::get, i -> i, this::getCallSiteId);
+    }
+
+    Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        Integer cs = callSiteIds.get(callSite);
+        if (cs == null) {
+            return Stream.of();
+        }
+        return IntStream.range(edgeOffsets[cs], edgeOffsets[cs + 1])
+                .mapToObj(this::getEdge);
+    }
+
+    Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        Integer m = methodIds.get(method);
+        if (m == null) {
+            return Stream.of();
+        }
+        return IntStream.range(calleeOffsets[m], calleeOffsets[m + 1])
+                .mapToObj(i -> getEdge(calleeEdges[i]));
+    }
+
+    Stream<Edge<CallSite, Method>> edges() {
+        return IntStream.range(0, edgeCallees.length).mapToObj(this::getEdge);
+    }
+
+    int getNumberOfEdges() {
+        return edgeCallees.length;
+    }
+
+    private Edge<CallSite, Method> getEdge(int e) {
+        return new Edge<>(KINDS[edgeKinds[e]],
+                callSites.get(edgeCallSites[e]), methods.get(edgeCallees[e]));
+    }
+
+    /**
+     * Read-only set view of the elements mapped from a range of integers.
+     * The elements in the range are distinct, and are sorted by their ids.
+     */
+    private static class RangeSet<E> extends AbstractSet<E> {
+
+        private final int start;
+
+        private final int end;
+
+        private final IntFunction<E> mapper;
+
+        /**
+         * Maps each integer in the range to the id of its element.
+         */
+        private final IntUnaryOperator idMapper;
+
+        /**
+         * Returns the id of given object, or -1 if it has no id.
+         */
+        private final ToIntFunction<Object> idOf;
+
+        private RangeSet(int start, int end, IntFunction<E> mapper,
+                         IntUnaryOperator idMapper, ToIntFunction<Object> idOf) {
+            this.start = start;
+            this.end = end;
+            this.mapper = mapper;
+            this.idMapper = idMapper;
+            this.idOf = idOf;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int id = idOf.applyAsInt(o);
+            if (id < 0) {
+                return false;
+            }
+            int low = start, high = end - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = idMapper.applyAsInt(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return mapper.apply(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exporter of call graphs.
+ * <p>
+ * The edges are written in the order of {@link CallGraph#edges()}, and
+ * each method or call site is written when it is first encountered, so
+ * no sorted copy of the call graph is materialized. Methods and call sites
+ * are written by their {@code toString()}, thus this class works for both
+ * context-insensitive and context-sensitive call graphs. Three formats are
+ * supported (see {@link Format}).
+ * <p>
+ * This is the export part of the exporter of assignment A4, which also
+ * provides the loader, and where both are tested. This assignment uses
+ * it to export context-sensitive call graphs.
+ */
+public final class CallGraphExporter {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphExporter.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int MAGIC = 0x54434745; // "TCGE"
+
+    private static final int VERSION = 1;
+
+    private static final byte END = 0;
+
+    private static final byte METHOD = 1;
+
+    private static final byte CALL_SITE = 2;
+
+    private static final byte ENTRY = 3;
+
+    private static final byte EDGE = 4;
+
+    private CallGraphExporter() {
+    }
+
+    /**
+     * Supported formats.
+     */
+    public enum Format {
+
+        /**
+         * Compact binary edge list. The file starts with a magic number
+         * and the format version, followed by a sequence of records,
+         * each of which starts with a tag byte:
+         * <ul>
+         *     <li>{@code METHOD}: signature (a new method id)</li>
+         *     <li>{@code CALL_SITE}: container id and call site
+         *     (a new call site id)</li>
+         *     <li>{@code ENTRY}: method id</li>
+         *     <li>{@code EDGE}: call site id, callee id and kind</li>
+         *     <li>{@code END}</li>
+         * </ul>
+         * Ids are numbered consecutively from 0 in the order of definition.
+         * All integers are big-endian, and strings are length-prefixed UTF-8.
+         */
+        BINARY(".cgb"),
+
+        /**
+         * Gzip'd tab-separated values, one edge per line:
+         * {@code caller, call site, kind, callee}. Entry methods are
+         * written before edges as lines of {@code #entry, method}.
+         * Backslashes, tabs and line breaks in the values are escaped as
+         * {@code \\}, {@code \t}, {@code \n} and {@code \r}.
+         */
+        TSV(".tsv.gz"),
+
+        /**
+         * GraphML, where nodes are methods and edges are call edges
+         * labeled with call sites and kinds.
+         */
+        GRAPHML(".graphml");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException("Unknown call graph format: " + name);
+            }
+        }
+    }
+
+    /**
+     * Writes given call graph to given file in given format.
+     */
+    public static <CallSite, Method> void export(
+            CallGraph<CallSite, Method> callGraph, Format format, Path file) {
+        logger.info("Exporting call graph to {} ...", file);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            switch (format) {
+                case BINARY -> exportBinary(callGraph, channel);
+                case TSV -> exportTSV(callGraph, channel);
+                case GRAPHML -> exportGraphML(callGraph, channel);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to export call graph to " + file, e);
+        }
+    }
+
+    private static <CallSite, Method> void exportBinary(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        ChannelOutput out = new ChannelOutput(channel);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        Map<Method, Integer> methodIds = Maps.newMap();
+        Map<CallSite, Integer> callSiteIds = Maps.newMap();
+        for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+            int id = writeMethod(it.next(), methodIds, out);
+            out.put(ENTRY);
+            out.putInt(id);
+        }
+        for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+            Edge<CallSite, Method> edge = it.next();
+            CallSite callSite = edge.getCallSite();
+            Integer callSiteId = callSiteIds.get(callSite);
+            if (callSiteId == null) {
+                int containerId = writeMethod(
+                        callGraph.getContainerOf(callSite), methodIds, out);
+                callSiteId = callSiteIds.size();
+                callSiteIds.put(callSite, callSiteId);
+                out.put(CALL_SITE);
+                out.putInt(containerId);
+                out.putString(callSite.toString());
+            }
+            int calleeId = writeMethod(edge.getCallee(), methodIds, out);
+            out.put(EDGE);
+            out.putInt(callSiteId);
+            out.putInt(calleeId);
+            out.put((byte) edge.getKind().ordinal());
+        }
+        out.put(END);
+        out.flush();
+    }
+
+    /**
+     * Writes the definition of given method if it has not been written.
+     *
+     * @return the id of the method.
+     */
+    private static <Method> int writeMethod(
+            Method method, Map<Method, Integer> ids, ChannelOutput out)
+            throws IOException {
+        Integer id = ids.get(method);
+        if (id == null) {
+            id = ids.size();
+            ids.put(method, id);
+            out.put(METHOD);
+            out.putString(method.toString());
+        }
+        return id;
+    }
+
+    private static <CallSite, Method> void exportTSV(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE),
+                StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+                out.write("#entry\t");
+                out.write(escapeTSV(it.next().toString()));
+                out.write('\n');
+            }
+            for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+                Edge<CallSite, Method> edge = it.next();
+                out.write(escapeTSV(callGraph.getContainerOf(edge.getCallSite()).toString()));
+                out.write('\t');
+                out.write(escapeTSV(edge.getCallSite().toString()));
+                out.write('\t');
+                out.write(edge.getKind().name());
+                out.write('\t');
+                out.write(escapeTSV(edge.getCallee().toString()));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static String escapeTSV(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            String esc = switch (c) {
+                case '\\' -> "\\\\";
+                case '\t' -> "\\t";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (esc != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (esc != null) {
+                    sb.append(esc);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : s;
+    }
+
+    private static <CallSite, Method> void exportGraphML(
+            CallGraph<CallSite, Method> callGraph, FileChannel channel)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            out.write("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <graphml xmlns="http://graphml.graphdrawing.org/xmlns">
+                      <key id="method" for="node" attr.name="method" attr.type="string"/>
+                      <key id="entry" for="node" attr.name="entry" attr.type="boolean"/>
+                      <key id="callSite" for="edge" attr.name="callSite" attr.type="string"/>
+                      <key id="kind" for="edge" attr.name="kind" attr.type="string"/>
+                      <graph edgedefault="directed">
+                    """);
+            Map<Method, Integer> nodeIds = Maps.newMap();
+            for (Iterator<Method> it = callGraph.entryMethods().iterator(); it.hasNext(); ) {
+                writeNode(it.next(), true, nodeIds, out);
+            }
+            for (Iterator<Edge<CallSite, Method>> it = callGraph.edges().iterator(); it.hasNext(); ) {
+                Edge<CallSite, Method> edge = it.next();
+                int source = writeNode(callGraph.getContainerOf(edge.getCallSite()),
+                        false, nodeIds, out);
+                int target = writeNode(edge.getCallee(), false, nodeIds, out);
+                out.write("    <edge source=\"n" + source + "\" target=\"n" + target + "\">");
+                out.write("<data key=\"callSite\">");
+                out.write(escapeXML(edge.getCallSite().toString()));
+                out.write("</data><data key=\"kind\">");
+                out.write(edge.getKind().name());
+                out.write("</data></edge>\n");
+            }
+            out.write("  </graph>\n</graphml>\n");
+        }
+    }
+
+    /**
+     * Writes the node of given method if it has not been written.
+     *
+     * @return the id of the node.
+     */
+    private static <Method> int writeNode(
+            Method method, boolean entry, Map<Method, Integer> ids, Writer out)
+            throws IOException {
+        Integer id = ids.get(method);
+        if (id == null) {
+            id = ids.size();
+            ids.put(method, id);
+            out.write("    <node id=\"n" + id + "\"><data key=\"method\">");
+            out.write(escapeXML(method.toString()));
+            out.write("</data>");
+            if (entry) {
+                out.write("<data key=\"entry\">true</data>");
+            }
+            out.write("</node>\n");
+        }
+        return id;
+    }
+
+    private static String escapeXML(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            String esc = switch (c) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (esc != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            }
+            if (sb != null) {
+                if (esc != null) {
+                    sb.append(esc);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : s;
+    }
+
+    /**
+     * Buffered binary output to a channel.
+     */
+    private static class ChannelOutput {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        private void put(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        private void putInt(int i) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(i);
+        }
+
+        private void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length <= buffer.capacity()) {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            } else {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -31,10 +31,14 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -45,6 +49,17 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    /**
+     * Call edges in the order they were added. As edges are never removed,
+     * the size of this list is the number of edges.
+     */
+    private final List<Edge<CSCallSite, CSMethod>> edgeLog = new ArrayList<>();
+
+    /**
+     * Cache of the call sites in each context-sensitive method.
+     */
+    private final Map<CSMethod, Set<CSCallSite>> callSitesCache = Maps.newMap();
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -53,6 +68,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * Adds an entry method to this call graph.
      */
     public void addEntryMethod(CSMethod entryMethod) {
+        checkNotFrozen();
         entryMethods.add(entryMethod);
     }
 
@@ -63,6 +79,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * otherwise false.
      */
     public boolean addReachableMethod(CSMethod csMethod) {
+        checkNotFrozen();
         if (reachableMethods.add(csMethod)) {
             callSitesIn(csMethod).forEach(csCallSite ->
                     csCallSite.setContainer(csMethod));
@@ -80,21 +97,46 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * otherwise false.
      */
     public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
+        checkNotFrozen();
         if (edge.getCallSite().addEdge(edge)) {
             edge.getCallee().addEdge(edge);
+            edgeLog.add(edge);
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * In addition to converting the edges, releases the edges kept
+     * by the context-sensitive call sites and methods.
+     */
+    @Override
+    public void freeze() {
+        if (!isFrozen()) {
+            super.freeze();
+            reachableMethods.forEach(csMethod -> {
+                csMethod.clearEdges();
+                getCallSitesIn(csMethod).forEach(CSCallSite::clearEdges);
+            });
+            edgeLog.clear();
+            callSitesCache.clear();
+        }
+    }
+
     @Override
     public Set<CSCallSite> getCallersOf(CSMethod callee) {
+        if (isFrozen()) {
+            return super.getCallersOf(callee);
+        }
         return Views.toMappedSet(callee.getEdges(), Edge::getCallSite);
     }
 
     @Override
     public Set<CSMethod> getCalleesOf(CSCallSite csCallSite) {
+        if (isFrozen()) {
+            return super.getCalleesOf(csCallSite);
+        }
         return Views.toMappedSet(csCallSite.getEdges(), Edge::getCallee);
     }
 
@@ -105,6 +147,13 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
+        if (isFrozen()) {
+            return super.getCallSitesIn(csMethod);
+        }
+        return callSitesCache.computeIfAbsent(csMethod, this::collectCallSitesIn);
+    }
+
+    private Set<CSCallSite> collectCallSitesIn(CSMethod csMethod) {
         JMethod method = csMethod.getMethod();
         Context context = csMethod.getContext();
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
@@ -119,19 +168,34 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edgesOutOf(CSCallSite csCallSite) {
+        if (isFrozen()) {
+            return super.edgesOutOf(csCallSite);
+        }
         return csCallSite.getEdges().stream();
     }
 
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edgesInTo(CSMethod csMethod) {
+        if (isFrozen()) {
+            return super.edgesInTo(csMethod);
+        }
         return csMethod.getEdges().stream();
     }
 
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edges() {
-        return reachableMethods.stream()
-                .flatMap(this::callSitesIn)
-                .flatMap(this::edgesOutOf);
+        if (isFrozen()) {
+            return super.edges();
+        }
+        return Collections.unmodifiableList(edgeLog).stream();
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        if (isFrozen()) {
+            return super.getNumberOfEdges();
+        }
+        return edgeLog.size();
     }
 
     @Override
@@ -43,10 +43,15 @@ public class ArrayIndex extends AbstractPointer {
         return array;
     }
 
+    /**
+     * @return the element type of the array object, or null if
+     * the object is not an array, e.g., a non-array object that
+     * flows to an array variable imprecisely.
+     */
     @Override
     public Type getType() {
-        return ((ArrayType) array.getObject().getType())
-                .elementType();
+        return array.getObject().getType() instanceof ArrayType arrayType
+                ? arrayType.elementType() : null;
     }
 
     @Override
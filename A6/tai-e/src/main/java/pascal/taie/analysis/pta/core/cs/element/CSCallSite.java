@@ -76,6 +76,14 @@ public class CSCallSite extends AbstractCSElement {
         return Collections.unmodifiableSet(edges);
     }
 
+    /**
+     * Removes the call edges kept by this element. This is used
+     * when the call graph is frozen into compact storage.
+     */
+    public void clearEdges() {
+        edges.clear();
+    }
+
     @Override
     public String toString() {
         return context + ":" + callSite;
@@ -68,6 +68,14 @@ public class CSMethod extends AbstractCSElement {
         return Collections.unmodifiableSet(edges);
     }
 
+    /**
+     * Removes the call edges kept by this element. This is used
+     * when the call graph is frozen into compact storage.
+     */
+    public void clearEdges() {
+        edges.clear();
+    }
+
     public <R> R getResult(String id, Supplier<R> supplier) {
         return resultHolder.getResult(id, supplier);
     }
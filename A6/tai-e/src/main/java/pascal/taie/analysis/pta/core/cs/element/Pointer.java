@@ -42,7 +42,7 @@ public interface Pointer {
     void setPointsToSet(PointsToSet pointsToSet);
 
     /**
-     * @return the type of this pointer
+     * @return the type of this pointer, or null if it is unknown
      */
     Type getType();
 }
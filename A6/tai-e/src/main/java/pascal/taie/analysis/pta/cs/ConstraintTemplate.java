@@ -0,0 +1,219 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pointer analysis constraints of the statements in a method body,
+ * compiled once per method and instantiated for each context in which
+ * the method is reachable.
+ * <p>
+ * The constraints are kept in parallel arrays, in the order of their
+ * statements. Each constraint consists of a kind, the indexes of its
+ * left-hand-side and right-hand-side variables in the IR (-1 if absent),
+ * and an operand, i.e., the index of its allocated object, static field
+ * or static call site in the corresponding table.
+ */
+final class ConstraintTemplate {
+
+    /**
+     * x = new T().
+     */
+    static final byte NEW = 0;
+
+    /**
+     * x = y.
+     */
+    static final byte COPY = 1;
+
+    /**
+     * T.f = y.
+     */
+    static final byte STORE_STATIC = 2;
+
+    /**
+     * x = T.f.
+     */
+    static final byte LOAD_STATIC = 3;
+
+    /**
+     * x = T.m(...).
+     */
+    static final byte STATIC_CALL = 4;
+
+    private final byte[] kinds;
+
+    private final int[] lhs;
+
+    private final int[] rhs;
+
+    private final int[] operands;
+
+    private final Obj[] objs;
+
+    private final JField[] fields;
+
+    private final Invoke[] callSites;
+
+    private final JMethod[] callees;
+
+    private ConstraintTemplate(byte[] kinds, int[] lhs, int[] rhs, int[] operands,
+                               Obj[] objs, JField[] fields,
+                               Invoke[] callSites, JMethod[] callees) {
+        this.kinds = kinds;
+        this.lhs = lhs;
+        this.rhs = rhs;
+        this.operands = operands;
+        this.objs = objs;
+        this.fields = fields;
+        this.callSites = callSites;
+        this.callees = callees;
+    }
+
+    /**
+     * Compiles the statements of given method into a constraint template.
+     */
+    static ConstraintTemplate compile(JMethod method, HeapModel heapModel) {
+        List<Stmt> stmts = method.getIR().getStmts();
+        int n = stmts.size();
+        byte[] kinds = new byte[n];
+        int[] lhs = new int[n];
+        int[] rhs = new int[n];
+        int[] operands = new int[n];
+        List<Obj> objs = new ArrayList<>();
+        List<JField> fields = new ArrayList<>();
+        List<Invoke> callSites = new ArrayList<>();
+        List<JMethod> callees = new ArrayList<>();
+        int size = 0;
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof New newStmt) {
+                kinds[size] = NEW;
+                lhs[size] = newStmt.getLValue().getIndex();
+                rhs[size] = -1;
+                operands[size] = objs.size();
+                objs.add(heapModel.getObj(newStmt));
+            } else if (stmt instanceof Copy copy) {
+                kinds[size] = COPY;
+                lhs[size] = copy.getLValue().getIndex();
+                rhs[size] = copy.getRValue().getIndex();
+                operands[size] = -1;
+            } else if (stmt instanceof StoreField storeField && storeField.isStatic()) {
+                kinds[size] = STORE_STATIC;
+                lhs[size] = -1;
+                rhs[size] = storeField.getRValue().getIndex();
+                operands[size] = fields.size();
+                fields.add(storeField.getFieldRef().resolve());
+            } else if (stmt instanceof LoadField loadField && loadField.isStatic()) {
+                kinds[size] = LOAD_STATIC;
+                lhs[size] = loadField.getLValue().getIndex();
+                rhs[size] = -1;
+                operands[size] = fields.size();
+                fields.add(loadField.getFieldRef().resolve());
+            } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
+                kinds[size] = STATIC_CALL;
+                lhs[size] = -1;
+                rhs[size] = -1;
+                operands[size] = callSites.size();
+                callSites.add(invoke);
+                callees.add(CallGraphs.resolveCallee(null, invoke));
+            } else {
+                continue;
+            }
+            ++size;
+        }
+        return new ConstraintTemplate(Arrays.copyOf(kinds, size),
+                Arrays.copyOf(lhs, size), Arrays.copyOf(rhs, size),
+                Arrays.copyOf(operands, size), objs.toArray(new Obj[0]),
+                fields.toArray(new JField[0]), callSites.toArray(new Invoke[0]),
+                callees.toArray(new JMethod[0]));
+    }
+
+    /**
+     * @return the number of constraints in this template.
+     */
+    int size() {
+        return kinds.length;
+    }
+
+    byte getKind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * @return the index of the left-hand-side variable of i-th constraint.
+     */
+    int getLHS(int i) {
+        return lhs[i];
+    }
+
+    /**
+     * @return the index of the right-hand-side variable of i-th constraint.
+     */
+    int getRHS(int i) {
+        return rhs[i];
+    }
+
+    /**
+     * @return the allocated object of i-th constraint of kind {@link #NEW}.
+     */
+    Obj getObj(int i) {
+        return objs[operands[i]];
+    }
+
+    /**
+     * @return the static field of i-th constraint of kind
+     * {@link #STORE_STATIC} or {@link #LOAD_STATIC}.
+     */
+    JField getField(int i) {
+        return fields[operands[i]];
+    }
+
+    /**
+     * @return the call site of i-th constraint of kind {@link #STATIC_CALL}.
+     */
+    Invoke getCallSite(int i) {
+        return callSites[operands[i]];
+    }
+
+    /**
+     * @return the callee of i-th constraint of kind {@link #STATIC_CALL}.
+     */
+    JMethod getCallee(int i) {
+        return callees[operands[i]];
+    }
+}
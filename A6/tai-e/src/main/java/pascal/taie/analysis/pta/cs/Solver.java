@@ -48,14 +48,19 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
-import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 class Solver {
 
@@ -77,23 +82,58 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Whether to filter out the objects that are incompatible with
+     * the types of the pointers they are propagated to.
+     */
+    private final boolean typeFilter;
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Pointer type -> object type -> whether the object type is
+     * a subtype of the pointer type.
+     */
+    private final Map<Type, Map<Type, Boolean>> subtypeCache = Maps.newMap();
+
+    /**
+     * Constraint templates of the methods that have been reached.
+     */
+    private final Map<JMethod, ConstraintTemplate> templates = Maps.newMap();
+
+    /**
+     * (receiver type, call site) -> resolved callee.
+     */
+    private final TwoKeyMap<Type, Invoke, JMethod> dispatchCache =
+            Maps.newTwoKeyMap();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.typeFilter = options.getBooleanOrDefault("type-filter", false);
     }
 
     void solve() {
         initialize();
         analyze();
+        if (options.getBooleanOrDefault("freeze-cg", false)) {
+            callGraph.freeze();
+        }
     }
 
     private void initialize() {
         csManager = new MapBasedCSManager();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        typeSystem = World.get().getTypeSystem();
+        subtypeCache.clear();
+        dispatchCache.clear();
+        templates.clear();
+        workList = new WorkList(
+                WorkList.Order.of(options.getString("worklist-order")),
+                pointerFlowGraph::getSuccsOf);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -103,51 +143,73 @@ class Solver {
     }
 
     /**
-     * Processes new reachable context-sensitive method.
+     * Processes new reachable context-sensitive method. The statements
+     * of the method are compiled into a {@link ConstraintTemplate} when
+     * the method is first reached, and the template is instantiated
+     * with the context of csMethod.
      */
     private void addReachable(CSMethod csMethod) {
         // TODO - finish me
         Context context = csMethod.getContext();
         if ((callGraph.addReachableMethod(csMethod))) {
-            List<Stmt> stmts = csMethod.getMethod().getIR().getStmts();
-            for (Stmt stmt : stmts) {
-                if (stmt instanceof New new_stmt) {
-                    // 处理new语句
-                    Obj obj = heapModel.getObj(new_stmt);
-                    CSVar csVar = csManager.getCSVar(context, new_stmt.getLValue());
-                    CSObj csobj = csManager.getCSObj(contextSelector.selectHeapContext(csMethod, obj), obj);
-                    workList.addEntry(csVar, PointsToSetFactory.make(csobj));
-                } else if (stmt instanceof Copy copy_stmt) {
-                    // 处理 c:x = c:y
-                    CSVar csVar_x = csManager.getCSVar(context, copy_stmt.getLValue());
-                    CSVar csVar_y = csManager.getCSVar(context, copy_stmt.getRValue());
-                    addPFGEdge(csVar_y, csVar_x);
-                } else if (stmt instanceof StoreField storeField && storeField.isStatic()) {
-                    // T.f = c:y
-                    JField jField = storeField.getFieldAccess().getFieldRef().resolve();
-                    Var y = storeField.getRValue();
-                    addPFGEdge(csManager.getCSVar(context, y), csManager.getStaticField(jField));
-                } else if (stmt instanceof LoadField loadField && loadField.isStatic()) {
-                    // 处理 c:y = T.f
-                    JField jField = loadField.getFieldAccess().getFieldRef().resolve();
-                    Var y = loadField.getLValue();
-                    addPFGEdge(csManager.getStaticField(jField), csManager.getCSVar(context, y));
-                } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
-                    // 处理静态方法调用，c:x = T.m()
-                    JMethod m = resolveCallee(null, invoke);
-                    CallKind callKind = CallGraphs.getCallKind(invoke);
-                    assert callKind == CallKind.STATIC;
-                    CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
-                    Context context_t = contextSelector.selectContext(csCallSite, m);
-                    if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csManager.getCSMethod(context_t, m)))) {
-                        addReachable(csManager.getCSMethod(context_t, m));
-                        processHelper(context, context_t, m, invoke);
+            ConstraintTemplate template = templates.computeIfAbsent(
+                    csMethod.getMethod(), m -> ConstraintTemplate.compile(m, heapModel));
+            IR ir = csMethod.getMethod().getIR();
+            CSVar[] csVars = new CSVar[ir.getVars().size()];
+            for (int i = 0; i < template.size(); ++i) {
+                switch (template.getKind(i)) {
+                    case ConstraintTemplate.NEW -> {
+                        // 处理new语句
+                        Obj obj = template.getObj(i);
+                        CSVar csVar = getCSVar(csVars, context, ir, template.getLHS(i));
+                        CSObj csobj = csManager.getCSObj(contextSelector.selectHeapContext(csMethod, obj), obj);
+                        workList.addEntry(csVar, PointsToSetFactory.make(csobj));
+                    }
+                    case ConstraintTemplate.COPY -> {
+                        // 处理 c:x = c:y
+                        CSVar csVar_x = getCSVar(csVars, context, ir, template.getLHS(i));
+                        CSVar csVar_y = getCSVar(csVars, context, ir, template.getRHS(i));
+                        addPFGEdge(csVar_y, csVar_x);
+                    }
+                    case ConstraintTemplate.STORE_STATIC -> {
+                        // T.f = c:y
+                        addPFGEdge(getCSVar(csVars, context, ir, template.getRHS(i)),
+                                csManager.getStaticField(template.getField(i)));
+                    }
+                    case ConstraintTemplate.LOAD_STATIC -> {
+                        // 处理 c:y = T.f
+                        addPFGEdge(csManager.getStaticField(template.getField(i)),
+                                getCSVar(csVars, context, ir, template.getLHS(i)));
+                    }
+                    case ConstraintTemplate.STATIC_CALL -> {
+                        // 处理静态方法调用，c:x = T.m()
+                        Invoke invoke = template.getCallSite(i);
+                        JMethod m = template.getCallee(i);
+                        CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+                        Context context_t = contextSelector.selectContext(csCallSite, m);
+                        if (callGraph.addEdge(new Edge<>(CallKind.STATIC, csCallSite, csManager.getCSMethod(context_t, m)))) {
+                            addReachable(csManager.getCSMethod(context_t, m));
+                            processHelper(context, context_t, m, invoke);
+                        }
                     }
                 }
             }
         }
     }
 
+    /**
+     * @return the context-sensitive variable of the var of given index
+     * in ir, which is cached in csVars.
+     */
+    private CSVar getCSVar(CSVar[] csVars, Context context, IR ir, int index) {
+        CSVar csVar = csVars[index];
+        if (csVar == null) {
+            csVar = csManager.getCSVar(context, ir.getVar(index));
+            csVars[index] = csVar;
+        }
+        return csVar;
+    }
+
     private void processHelper(Context prev, Context cur, JMethod m, Invoke invoke) {
         // invoke -> m
         List<Var> args = invoke.getInvokeExp().getArgs();
@@ -242,8 +304,8 @@ class Solver {
                         ArrayIndex arrayIndex = csManager.getArrayIndex(obj);
                         addPFGEdge(arrayIndex, y_ptr);
                     }
-                    processCall(n_ptr, obj);
                 }
+                processCall(n_ptr, delta);
             }
 
         }
@@ -257,8 +319,15 @@ class Solver {
         // TODO - finish me
         PointsToSet delta = PointsToSetFactory.make();
         PointsToSet pointer_set = pointer.getPointsToSet();
+        Type type = typeFilter ? pointer.getType() : null;
+        Map<Type, Boolean> subtypes = type != null ?
+                subtypeCache.computeIfAbsent(type, t -> Maps.newMap()) : null;
         for (CSObj obj : pointsToSet) {
             if (pointer_set.contains(obj)) continue;
+            if (subtypes != null && !isSubtype(subtypes, type, obj)) {
+                // obj cannot be pointed to by pointer
+                continue;
+            }
             pointer_set.addObject(obj);
             delta.addObject(obj);
         }
@@ -270,45 +339,72 @@ class Solver {
         return delta;
     }
 
+    private boolean isSubtype(Map<Type, Boolean> subtypes, Type type, CSObj obj) {
+        Type objType = obj.getObject().getType();
+        return subtypes.computeIfAbsent(objType, t -> typeSystem.isSubtype(type, t));
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
-     * @param recv    the receiver variable
-     * @param recvObj set of new discovered objects pointed by the variable.
+     * @param recv     the receiver variable
+     * @param recvObjs set of new discovered objects pointed by the variable.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
+    private void processCall(CSVar recv, PointsToSet recvObjs) {
         // TODO - finish me
         // c:x : c':o_i
+        List<Invoke> invokes = recv.getVar().getInvokes();
+        if (invokes.isEmpty()) {
+            return;
+        }
+        // group receiver objects by types, so that each call site
+        // is resolved once per type
+        Map<Type, List<CSObj>> recvObjsByType = Maps.newSmallMap();
+        for (CSObj recvObj : recvObjs) {
+            recvObjsByType.computeIfAbsent(recvObj.getObject().getType(),
+                    t -> new ArrayList<>()).add(recvObj);
+        }
         Context context = recv.getContext();
-        for (Invoke invoke : recv.getVar().getInvokes()) {
-            JMethod m = resolveCallee(recvObj, invoke);
+        for (Invoke invoke : invokes) {
             CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
-            // resolve callee context
-            Context context_t = contextSelector.selectContext(csCallSite, recvObj, m);
+            // objects dispatched to the same callee in the same context
+            // are passed to its this variable as one set
+            Map<CSMethod, PointsToSet> recvObjsByCallee = Maps.newMap();
+            recvObjsByType.forEach((type, objs) -> {
+                JMethod m = dispatch(type, invoke);
+                if (m == null) {
+                    return;
+                }
+                for (CSObj recvObj : objs) {
+                    // resolve callee context
+                    Context context_t = contextSelector.selectContext(csCallSite, recvObj, m);
+                    recvObjsByCallee.computeIfAbsent(csManager.getCSMethod(context_t, m),
+                            csm -> PointsToSetFactory.make()).addObject(recvObj);
+                }
+            });
             CallKind callKind = CallGraphs.getCallKind(invoke);
-            CSMethod csMethod = csManager.getCSMethod(context_t, m);
-            if (m.getIR().getThis() != null) {
-                // i.e instance method call
-                workList.addEntry(csManager.getCSVar(context_t, m.getIR().getThis()), PointsToSetFactory.make(recvObj));
-            }
-            if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csMethod))) {
-                addReachable(csMethod);
-                processHelper(context, context_t, m, invoke);
-            }
+            recvObjsByCallee.forEach((csMethod, objs) -> {
+                Context context_t = csMethod.getContext();
+                JMethod m = csMethod.getMethod();
+                if (m.getIR().getThis() != null) {
+                    // i.e instance method call
+                    workList.addEntry(csManager.getCSVar(context_t, m.getIR().getThis()), objs);
+                }
+                if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csMethod))) {
+                    addReachable(csMethod);
+                    processHelper(context, context_t, m, invoke);
+                }
+            });
         }
     }
 
     /**
-     * Resolves the callee of a call site with the receiver object.
-     *
-     * @param recv     the receiver object of the method call. If the callSite
-     *                 is static, this parameter is ignored (i.e., can be null).
-     * @param callSite the call site to be resolved.
-     * @return the resolved callee.
+     * Resolves the callee of given call site for the receiver objects
+     * of given type. The results are memoized in {@link #dispatchCache}.
      */
-    private JMethod resolveCallee(CSObj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+    private JMethod dispatch(Type type, Invoke callSite) {
+        return dispatchCache.computeIfAbsent(type, callSite,
+                CallGraphs::resolveCallee);
     }
 
     PointerAnalysisResult getResult() {
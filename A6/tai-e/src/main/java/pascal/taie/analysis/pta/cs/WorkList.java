@@ -24,22 +24,150 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one pending entry for each pointer:
+ * when a pointer that is already in the work list receives another
+ * points-to set, the set is merged into the pending one, so that the
+ * pointer is propagated once for all pending objects. Pointers are
+ * retrieved in the given {@link Order}.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Orders in which pointers are retrieved from the work list.
+     */
+    enum Order {
+
+        /**
+         * First-in, first-out.
+         */
+        FIFO,
+
+        /**
+         * Least-recently-fired first, i.e., the pointer that has not been
+         * retrieved for the longest time goes first.
+         */
+        LRF,
+
+        /**
+         * Topological order of the pointer flow graph, recomputed for
+         * the pending pointers whenever the previous round is exhausted.
+         * Only the edges among the pending pointers are considered, so each
+         * round costs time linear in the pending pointers and their out-edges.
+         */
+        TOPO;
+
+        /**
+         * @return the order of given name, or {@link #FIFO} if name is null.
+         */
+        static Order of(String name) {
+            if (name == null) {
+                return FIFO;
+            }
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigException("Unknown work list order: " + name);
+            }
+        }
+    }
+
+    private final Order order;
+
+    /**
+     * Function that returns the successors of a pointer,
+     * used by {@link Order#TOPO}.
+     */
+    private final Function<Pointer, ? extends Collection<Pointer>> succs;
+
+    /**
+     * Map from each pointer in the work list to its pending points-to set.
+     */
+    private final Map<Pointer, Pending> pending = Maps.newMap();
+
+    /**
+     * Pointers in the order of retrieval, used by {@link Order#FIFO}
+     * and as the current round of {@link Order#TOPO}.
+     */
+    private final Deque<Pointer> queue = new ArrayDeque<>();
+
+    /**
+     * Pointers of the next round, used by {@link Order#TOPO}.
+     */
+    private final List<Pointer> nextRound = new ArrayList<>();
+
+    /**
+     * Pointers prioritized by the time they were last retrieved,
+     * used by {@link Order#LRF}.
+     */
+    private final Queue<LRFItem> lrfQueue = new PriorityQueue<>(
+            Comparator.comparingLong(LRFItem::lastFired)
+                    .thenComparingLong(LRFItem::seq));
 
     /**
-     * Adds an entry to the work list.
+     * Maximum number of pointers whose last retrieval times are kept.
+     */
+    private static final int MAX_LAST_FIRED = 1 << 16;
+
+    /**
+     * Map from recently retrieved pointers to the time they were last
+     * retrieved, in the order of retrieval. When the map is full, the least
+     * recently retrieved pointer is evicted and treated as never retrieved,
+     * which keeps it behind none of the retained pointers.
+     */
+    private final Map<Pointer, Long> lastFired = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Pointer, Long> eldest) {
+            return size() > MAX_LAST_FIRED;
+        }
+    };
+
+    private long clock = 0;
+
+    WorkList(Order order, Function<Pointer, ? extends Collection<Pointer>> succs) {
+        this.order = order;
+        this.succs = succs;
+    }
+
+    /**
+     * Adds an entry to the work list. If the pointer is already in the
+     * work list, given points-to set is merged into its pending set.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        Pending pendingSet = pending.get(pointer);
+        if (pendingSet == null) {
+            pending.put(pointer, new Pending(pointsToSet));
+            switch (order) {
+                case FIFO -> queue.add(pointer);
+                case LRF -> lrfQueue.add(new LRFItem(pointer,
+                        lastFired.getOrDefault(pointer, -1L), clock++));
+                case TOPO -> nextRound.add(pointer);
+            }
+        } else {
+            pendingSet.merge(pointsToSet);
+        }
     }
 
     /**
@@ -47,14 +175,72 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = switch (order) {
+            case FIFO -> queue.poll();
+            case LRF -> {
+                LRFItem item = lrfQueue.poll();
+                if (item == null) {
+                    yield null;
+                }
+                lastFired.remove(item.pointer());
+                lastFired.put(item.pointer(), clock++);
+                yield item.pointer();
+            }
+            case TOPO -> {
+                if (queue.isEmpty()) {
+                    queue.addAll(sortTopologically(nextRound));
+                    nextRound.clear();
+                }
+                yield queue.poll();
+            }
+        };
+        if (pointer == null) {
+            return null;
+        }
+        return new Entry(pointer, pending.remove(pointer).pointsToSet);
+    }
+
+    /**
+     * Sorts given pointers in topological order of the sub-graph of the
+     * pointer flow graph induced by them, i.e., the reverse post-order of
+     * depth-first search that only visits given pointers.
+     */
+    private List<Pointer> sortTopologically(List<Pointer> pointers) {
+        Set<Pointer> targets = Sets.newSet();
+        targets.addAll(pointers);
+        Set<Pointer> visited = Sets.newSet();
+        List<Pointer> postOrder = new ArrayList<>(pointers.size());
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iterators = new ArrayDeque<>();
+        for (Pointer root : pointers) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            stack.push(root);
+            iterators.push(succs.apply(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<Pointer> it = iterators.peek();
+                if (it.hasNext()) {
+                    Pointer succ = it.next();
+                    if (targets.contains(succ) && visited.add(succ)) {
+                        stack.push(succ);
+                        iterators.push(succs.apply(succ).iterator());
+                    }
+                } else {
+                    iterators.pop();
+                    postOrder.add(stack.pop());
+                }
+            }
+        }
+        Collections.reverse(postOrder);
+        return postOrder;
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pending.isEmpty();
     }
 
     /**
@@ -63,4 +249,39 @@ class WorkList {
      */
     record Entry(Pointer pointer, PointsToSet pointsToSet) {
     }
+
+    /**
+     * Pending points-to set of a pointer.
+     */
+    private static class Pending {
+
+        private PointsToSet pointsToSet;
+
+        /**
+         * Whether {@link #pointsToSet} is owned by the work list (instead of
+         * shared with the caller of {@link #addEntry}), so that it can be
+         * merged in place.
+         */
+        private boolean owned = false;
+
+        private Pending(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
+
+        private void merge(PointsToSet pts) {
+            if (pts == pointsToSet) {
+                return;
+            }
+            if (!owned) {
+                PointsToSet copy = PointsToSetFactory.make();
+                copy.addAll(pointsToSet);
+                pointsToSet = copy;
+                owned = true;
+            }
+            pointsToSet.addAll(pts);
+        }
+    }
+
+    private record LRFItem(Pointer pointer, long lastFired, long seq) {
+    }
 }
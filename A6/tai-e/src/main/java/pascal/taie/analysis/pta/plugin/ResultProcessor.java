@@ -24,10 +24,12 @@ package pascal.taie.analysis.pta.plugin;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraphExporter;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Configs;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
@@ -72,6 +74,10 @@ public class ResultProcessor {
     public static void process(AnalysisOptions options,
                                PointerAnalysisResult result) {
         printStatistics(result);
+        String cgFormat = options.getString("cs-cg-format");
+        if (cgFormat != null) {
+            exportCSCallGraph(result, CallGraphExporter.Format.of(cgFormat));
+        }
         String action = options.getString("action");
         if (action == null) {
             return;
@@ -94,8 +100,8 @@ public class ResultProcessor {
         int aptSizeSens = sum(result.getArrayIndexes(), getSize);
         int reachableInsens = result.getCallGraph().getNumberOfMethods();
         int reachableSens = result.getCSCallGraph().getNumberOfMethods();
-        int callEdgeInsens = (int) result.getCallGraph().edges().count();
-        int callEdgeSens = (int) result.getCSCallGraph().edges().count();
+        int callEdgeInsens = result.getCallGraph().getNumberOfEdges();
+        int callEdgeSens = result.getCSCallGraph().getNumberOfEdges();
         System.out.println("-------------- Pointer analysis statistics: --------------");
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#var pointers:",
                 format(varInsens), format(varSens));
@@ -118,6 +124,16 @@ public class ResultProcessor {
         return formatter.format(i);
     }
 
+    /**
+     * Exports the context-sensitive call graph to the output directory.
+     */
+    private static void exportCSCallGraph(PointerAnalysisResult result,
+                                          CallGraphExporter.Format format) {
+        File output = new File(Configs.getOutputDir(),
+                "cs-cg" + format.getExtension());
+        CallGraphExporter.export(result.getCSCallGraph(), format, output.toPath());
+    }
+
     private static void dumpPointsToSet(PointerAnalysisResult result, String output) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
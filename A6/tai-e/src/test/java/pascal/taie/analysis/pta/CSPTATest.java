@@ -23,74 +23,117 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the test cases with the default options and with each optional
+ * solving technique enabled. The techniques do not change the results,
+ * thus the runs share the default expected files, except for type
+ * filtering, which removes the objects of incompatible types, e.g.,
+ * the object stored into an array of another type in {@code Array},
+ * and compares with "main-cspta-type-filter-expected.txt" if it exists.
+ */
+@RunWith(Parameterized.class)
 public class CSPTATest {
 
     static final String DIR = "cspta";
 
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> options() {
+        return List.of(new Object[]{"default"},
+                new Object[]{"worklist-order:lrf"},
+                new Object[]{"worklist-order:topo"},
+                new Object[]{"type-filter:true"},
+                new Object[]{"freeze-cg:true"});
+    }
+
+    /**
+     * Options given to the analysis, or "default" for no options.
+     */
+    @Parameterized.Parameter
+    public String options;
+
+    private void test(String main, String... opts) {
+        List<String> args = new ArrayList<>();
+        Collections.addAll(args, opts);
+        if (options.equals("default")) {
+            Tests.testCSPTA(DIR, main, args.toArray(new String[0]));
+        } else {
+            args.add(options);
+            String variant = options.substring(0, options.indexOf(':'));
+            Tests.testCSPTAVariant(DIR, main, variant,
+                    args.toArray(new String[0]));
+        }
+    }
+
     @Test
     public void testNew() {
-        Tests.testCSPTA(DIR, "New");
+        test("New");
     }
 
     @Test
     public void testAssign() {
-        Tests.testCSPTA(DIR, "Assign");
+        test("Assign");
     }
 
     @Test
     public void testStoreLoad() {
-        Tests.testCSPTA(DIR, "StoreLoad");
+        test("StoreLoad");
     }
 
     @Test
     public void testCall() {
-        Tests.testCSPTA(DIR, "Call");
+        test("Call");
     }
 
     @Test
     public void testInstanceField() {
-        Tests.testCSPTA(DIR, "InstanceField");
+        test("InstanceField");
     }
 
     @Test
     public void testOneCall() {
-        Tests.testCSPTA(DIR, "OneCall", "cs:1-call");
+        test("OneCall", "cs:1-call");
     }
 
     @Test
     public void testOneObject() {
-        Tests.testCSPTA(DIR, "OneObject", "cs:1-obj");
+        test("OneObject", "cs:1-obj");
     }
 
     @Test
     public void testOneType() {
-        Tests.testCSPTA(DIR, "OneType", "cs:1-type");
+        test("OneType", "cs:1-type");
     }
 
     @Test
     public void testTwoCall() {
-        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call");
+        test("TwoCall", "cs:2-call");
     }
 
     @Test
     public void testTwoObject() {
-        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
+        test("TwoObject", "cs:2-obj");
     }
 
     @Test
     public void testTwoType() {
-        Tests.testCSPTA(DIR, "TwoType", "cs:2-type");
+        test("TwoType", "cs:2-type");
     }
 
     @Test
     public void testStaticField() {
-        Tests.testCSPTA(DIR, "StaticField");
+        test("StaticField");
     }
 
     @Test
     public void testArray() {
-        Tests.testCSPTA(DIR, "Array");
+        test("Array");
     }
 }
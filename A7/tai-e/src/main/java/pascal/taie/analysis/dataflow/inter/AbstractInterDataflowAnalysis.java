@@ -32,7 +32,10 @@ import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -121,9 +124,24 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        solver = getOptions().getBooleanOrDefault("context-sensitive", false) ?
+                newCSSolver() : new InterSolver<>(this, icfg);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
     }
+
+    /**
+     * Creates a context-sensitive solver, which resolves callees via
+     * the context-sensitive call graph of the pointer analysis
+     * specified by option "pta".
+     */
+    @SuppressWarnings("unchecked")
+    private InterSolver<Method, Node, Fact> newCSSolver() {
+        PointerAnalysisResult pta = World.get().getResult(
+                getOptions().getString("pta"));
+        return (InterSolver<Method, Node, Fact>) new CSInterSolver<>(
+                (InterDataflowAnalysis<Stmt, Fact>) this,
+                (ICFG<JMethod, Stmt>) icfg, pta.getCSCallGraph());
+    }
 }
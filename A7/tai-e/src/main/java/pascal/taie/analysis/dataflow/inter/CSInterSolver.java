@@ -0,0 +1,200 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+
+import java.util.AbstractQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Context-sensitive solver for inter-procedural data-flow analysis.
+ * <p>
+ * The ICFG only provides the intra-procedural edges and the call/return
+ * edges between methods, while the callees of each call site are
+ * resolved under the calling context via the context-sensitive call graph
+ * built by pointer analysis. The facts are computed by a summary-based
+ * solver (see {@link AbstractSummarySolver}) whose summaries are keyed by
+ * {@link CSMethod}s, i.e., each method is analyzed separately for every
+ * pair of its context and entry fact.
+ * <p>
+ * {@link #getResult()} gives the merged facts of all contexts, which are
+ * updated during solving, so that analyses can query the facts of other
+ * nodes as with {@link InterSolver}.
+ */
+class CSInterSolver<Fact> extends InterSolver<JMethod, Stmt, Fact> {
+
+    private final InterDataflowAnalysis<Stmt, Fact> analysis;
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final CallGraph<CSCallSite, CSMethod> csCallGraph;
+
+    /**
+     * Map from each context-sensitive method to the callees of its
+     * call sites, which are grouped by their methods. The callees of
+     * a context-sensitive method are computed when it is first analyzed.
+     */
+    private final Map<CSMethod, Map<Invoke, MultiMap<JMethod, CSMethod>>> calleesOf =
+            Maps.newMap();
+
+    private final Engine engine;
+
+    private final Queue<Stmt> workListView = new WorkListView();
+
+    private DataflowResult<Stmt, Fact> result;
+
+    CSInterSolver(InterDataflowAnalysis<Stmt, Fact> analysis,
+                  ICFG<JMethod, Stmt> icfg,
+                  CallGraph<CSCallSite, CSMethod> csCallGraph) {
+        super(analysis, icfg);
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.csCallGraph = csCallGraph;
+        this.engine = new Engine();
+    }
+
+    @Override
+    DataflowResult<Stmt, Fact> solve() {
+        result = new DataflowResult<>();
+        for (Stmt node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        csCallGraph.entryMethods().forEach(engine::addEntry);
+        engine.doSolve();
+        return result;
+    }
+
+    /**
+     * @return the context-sensitive callees of given call site
+     * under the context of given caller, whose method is given callee.
+     */
+    private Set<CSMethod> getCSCallees(CSMethod caller, Stmt callSite, JMethod callee) {
+        Map<Invoke, MultiMap<JMethod, CSMethod>> callees =
+                calleesOf.computeIfAbsent(caller, this::computeCallees);
+        MultiMap<JMethod, CSMethod> calleesOfSite = callees.get((Invoke) callSite);
+        return calleesOfSite != null ? calleesOfSite.get(callee) : Set.of();
+    }
+
+    private Map<Invoke, MultiMap<JMethod, CSMethod>> computeCallees(CSMethod caller) {
+        Map<Invoke, MultiMap<JMethod, CSMethod>> callees = Maps.newMap();
+        csCallGraph.getCallSitesIn(caller).forEach(csCallSite -> {
+            MultiMap<JMethod, CSMethod> calleesOfSite = Maps.newMultiMap();
+            csCallGraph.getCalleesOf(csCallSite).forEach(csCallee ->
+                    calleesOfSite.put(csCallee.getMethod(), csCallee));
+            callees.put(csCallSite.getCallSite(), calleesOfSite);
+        });
+        return callees;
+    }
+
+    @Override
+    public DataflowResult<Stmt, Fact> getResult() {
+        return result;
+    }
+
+    /**
+     * @return a view of the work-list. Adding a node to the view
+     * re-schedules the node in all summaries that have visited it.
+     */
+    @Override
+    public Queue<Stmt> getWorkList() {
+        return workListView;
+    }
+
+    /**
+     * Summary-based solver whose summaries are keyed by context-sensitive
+     * methods, and which maintains the merged facts of all contexts.
+     */
+    private class Engine extends AbstractSummarySolver<CSMethod, JMethod, Stmt, Fact> {
+
+        private Engine() {
+            super(CSInterSolver.this.analysis, CSInterSolver.this.icfg);
+        }
+
+        @Override
+        protected JMethod getMethod(CSMethod csMethod) {
+            return csMethod.getMethod();
+        }
+
+        @Override
+        protected Set<CSMethod> getCallees(CSMethod caller, Stmt callSite, JMethod callee) {
+            return getCSCallees(caller, callSite, callee);
+        }
+
+        @Override
+        protected boolean transferNode(Stmt node, Fact in, Fact out) {
+            // the merged IN fact is updated before transfer, as the analysis
+            // may query it when transferring the node
+            analysis.meetInto(in, result.getInFact(node));
+            boolean changed = super.transferNode(node, in, out);
+            analysis.meetInto(out, result.getOutFact(node));
+            return changed;
+        }
+    }
+
+    private class WorkListView extends AbstractQueue<Stmt> {
+
+        @Override
+        public boolean offer(Stmt node) {
+            return engine.reschedule(node);
+        }
+
+        @Override
+        public Stmt poll() {
+            Pair<?, Stmt> item = engine.getWorkList().poll();
+            return item != null ? item.second() : null;
+        }
+
+        @Override
+        public Stmt peek() {
+            Pair<?, Stmt> item = engine.getWorkList().peek();
+            return item != null ? item.second() : null;
+        }
+
+        @Override
+        public Iterator<Stmt> iterator() {
+            return Collections.unmodifiableCollection(
+                    engine.getWorkList().stream().map(Pair::second).toList()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return engine.getWorkList().size();
+        }
+    }
+}
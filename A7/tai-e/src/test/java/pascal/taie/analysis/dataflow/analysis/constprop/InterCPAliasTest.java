@@ -23,16 +23,36 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 
+import java.util.List;
+
+/**
+ * Runs the test cases with both the context-insensitive and the
+ * context-sensitive solver. The methods in the test cases are called
+ * with the same facts in all contexts, thus both solvers are expected
+ * to give the same results.
+ */
+@RunWith(Parameterized.class)
 public class InterCPAliasTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
 
+    @Parameterized.Parameters(name = "context-sensitive:{0}")
+    public static List<Object[]> solvers() {
+        return List.of(new Object[]{false}, new Object[]{true});
+    }
+
+    @Parameterized.Parameter
+    public boolean contextSensitive;
+
     void test(String inputClass) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:true;pta:cspta",
+                "edge-refine:false;alias-aware:true;pta:cspta;context-sensitive:" +
+                        contextSensitive,
                 "-a", "cspta=cs:2-obj", "-a", "cg=algorithm:cspta"
                 //, "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                            // to output ICFGs for the test cases